@@ -0,0 +1,12 @@
+plugins {
+    id("org.framefork.build.library-published")
+}
+
+dependencies {
+    testImplementation(libs.spring.boot.starter)
+    testImplementation(libs.junit.jupiter)
+    testImplementation(libs.assertj)
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
+}
+
+project.description = "Annotation processor, that indexes configuration classes for spring-properties-order-by-configurations at build time"
@@ -0,0 +1,288 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Writes the metadata of all the compiled configuration classes into {@code META-INF/spring-properties-order-by-configurations.index},
+ * so that the post-processor doesn't have to introspect them when the application starts.
+ *
+ * <p>The processor works purely with the language model and doesn't need Spring on the annotation processor path.
+ * Configuration classes that inherit their {@code @PropertySource} or {@code @Import} through meta-annotations
+ * are left out of the index, and the post-processor introspects them at runtime, as if the processor was not used.
+ */
+@SupportedAnnotationTypes("*")
+public class PropertySourcesOrderIndexProcessor extends AbstractProcessor
+{
+
+    static final String INDEX_LOCATION = "META-INF/spring-properties-order-by-configurations.index";
+
+    private static final String CONFIGURATION = "org.springframework.context.annotation.Configuration";
+    private static final String IMPORT = "org.springframework.context.annotation.Import";
+    private static final String PROPERTY_SOURCE = "org.springframework.context.annotation.PropertySource";
+    private static final String PROPERTY_SOURCES = "org.springframework.context.annotation.PropertySources";
+
+    private final Map<String, String> index = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion()
+    {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv)
+    {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            if (element instanceof TypeElement type) {
+                indexTypes(type);
+            }
+        }
+
+        return false;
+    }
+
+    private void indexTypes(final TypeElement type)
+    {
+        // annotations that are meta-annotated with @Configuration (e.g. @SpringBootApplication) are not configurations themselves
+        if (type.getKind() == ElementKind.CLASS && isMetaAnnotatedWith(type, CONFIGURATION, new HashSet<>())) {
+            indexConfiguration(type);
+        }
+
+        for (Element enclosed : type.getEnclosedElements()) {
+            if (enclosed instanceof TypeElement nestedType) {
+                indexTypes(nestedType);
+            }
+        }
+    }
+
+    private void indexConfiguration(final TypeElement type)
+    {
+        List<AnnotationMirror> propertySources = new ArrayList<>();
+        Optional<AnnotationMirror> directImport = Optional.empty();
+        boolean hasMetaPropertySource = false;
+        boolean hasMetaImport = false;
+
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            String annotationName = annotationName(annotation);
+            switch (annotationName) {
+                case PROPERTY_SOURCE -> propertySources.add(annotation);
+                case PROPERTY_SOURCES -> annotationValues(annotation, "value").forEach(value -> propertySources.add((AnnotationMirror) value.getValue()));
+                case IMPORT -> directImport = Optional.of(annotation);
+                default -> {
+                    hasMetaPropertySource |= isMetaAnnotatedWith(annotationElement(annotation), PROPERTY_SOURCE, new HashSet<>())
+                        || isMetaAnnotatedWith(annotationElement(annotation), PROPERTY_SOURCES, new HashSet<>());
+                    hasMetaImport |= isMetaAnnotatedWith(annotationElement(annotation), IMPORT, new HashSet<>());
+                }
+            }
+        }
+
+        String className = binaryName(type);
+
+        // the runtime merges these the same way Spring does, which is not worth replicating here
+        if (hasMetaPropertySource || (directImport.isEmpty() && hasMetaImport)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format("Not indexing '%s', because its @PropertySource or @Import are declared through meta-annotations", className), type);
+            return;
+        }
+
+        // e.g. a super type from another module, that is not on the classpath of an incremental or partial compilation
+        if (!isHierarchyResolved(type)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, String.format("Not indexing '%s', because its super types cannot be resolved", className), type);
+            return;
+        }
+
+        List<String> imports = new ArrayList<>();
+        if (directImport.isPresent()) {
+            for (AnnotationValue value : annotationValues(directImport.get(), "value")) {
+                TypeMirror importedType = (TypeMirror) value.getValue();
+                if (importedType.getKind() != TypeKind.DECLARED) {
+                    // not resolvable in this compilation, the runtime introspection will take care of the class
+                    return;
+                }
+                imports.add(binaryName((TypeElement) ((DeclaredType) importedType).asElement()));
+            }
+        }
+
+        index.put(className + ".types", String.join(",", getAllBeanTypeNames(type)));
+        index.put(className + ".imports", String.join(",", new LinkedHashSet<>(imports)));
+
+        for (int i = 0; i < propertySources.size(); i++) {
+            AnnotationMirror propertySource = propertySources.get(i);
+            String prefix = className + ".property-source." + i;
+
+            String name = annotationValue(propertySource, "name").map(value -> (String) value.getValue()).orElse("");
+            if (!name.isEmpty()) {
+                index.put(prefix + ".name", name);
+            }
+
+            List<? extends AnnotationValue> locations = annotationValues(propertySource, "value");
+            for (int j = 0; j < locations.size(); j++) {
+                index.put(prefix + ".location." + j, (String) locations.get(j).getValue());
+            }
+        }
+    }
+
+    /**
+     * Mirrors the runtime bean types, including the quirk that the class itself is listed among its super types,
+     * when it extends a class other than {@link Object}.
+     */
+    private Set<String> getAllBeanTypeNames(final TypeElement type)
+    {
+        Set<String> result = new LinkedHashSet<>();
+        result.add(binaryName(type));
+        result.addAll(getAllSuperTypeNames(type));
+        return result;
+    }
+
+    private Set<String> getAllSuperTypeNames(final TypeElement type)
+    {
+        Set<String> types = new LinkedHashSet<>();
+
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() == TypeKind.DECLARED) {
+            TypeElement superclassElement = (TypeElement) ((DeclaredType) superclass).asElement();
+            if (!Object.class.getName().equals(superclassElement.getQualifiedName().toString())) {
+                types.add(binaryName(type));
+                types.addAll(getAllSuperTypeNames(superclassElement));
+            }
+        }
+
+        for (TypeMirror anInterface : type.getInterfaces()) {
+            TypeElement interfaceElement = (TypeElement) ((DeclaredType) anInterface).asElement();
+            types.add(binaryName(interfaceElement));
+            types.addAll(getAllSuperTypeNames(interfaceElement));
+        }
+
+        return types;
+    }
+
+    /**
+     * The bean types would be silently truncated at the first unresolved super type.
+     */
+    private static boolean isHierarchyResolved(final TypeElement type)
+    {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.NONE && (superclass.getKind() != TypeKind.DECLARED || !isHierarchyResolved((TypeElement) ((DeclaredType) superclass).asElement()))) {
+            return false;
+        }
+
+        for (TypeMirror anInterface : type.getInterfaces()) {
+            if (anInterface.getKind() != TypeKind.DECLARED || !isHierarchyResolved((TypeElement) ((DeclaredType) anInterface).asElement())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isMetaAnnotatedWith(final Element element, final String annotationName, final Set<String> visited)
+    {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            String name = annotationName(annotation);
+            if (name.equals(annotationName)) {
+                return true;
+            }
+            if (name.startsWith("java.lang.annotation.") || !visited.add(name)) {
+                continue;
+            }
+            if (isMetaAnnotatedWith(annotationElement(annotation), annotationName, visited)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void writeIndex()
+    {
+        if (index.isEmpty()) {
+            return;
+        }
+
+        try {
+            Properties properties = new Properties();
+            properties.putAll(index);
+
+            // Properties.store() escapes the keys and values, but its output is neither sorted nor reproducible
+            StringWriter stored = new StringWriter();
+            properties.store(stored, null);
+
+            FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_LOCATION);
+            try (Writer writer = resource.openWriter()) {
+                for (String line : stored.toString().lines().filter(line -> !line.startsWith("#")).sorted().toList()) {
+                    writer.write(line);
+                    writer.write('\n');
+                }
+            }
+
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, String.format("Cannot write '%s': %s", INDEX_LOCATION, e.getMessage()));
+        }
+    }
+
+    private String binaryName(final TypeElement type)
+    {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private static String annotationName(final AnnotationMirror annotation)
+    {
+        return annotationElement(annotation).getQualifiedName().toString();
+    }
+
+    private static TypeElement annotationElement(final AnnotationMirror annotation)
+    {
+        return (TypeElement) annotation.getAnnotationType().asElement();
+    }
+
+    private static Optional<AnnotationValue> annotationValue(final AnnotationMirror annotation, final String attributeName)
+    {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : annotation.getElementValues().entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attributeName)) {
+                return Optional.of(entry.getValue());
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<? extends AnnotationValue> annotationValues(final AnnotationMirror annotation, final String attributeName)
+    {
+        return annotationValue(annotation, attributeName)
+            .map(value -> value.getValue() instanceof List<?> values ? (List<? extends AnnotationValue>) values : List.of(value))
+            .orElseGet(List::of);
+    }
+
+}
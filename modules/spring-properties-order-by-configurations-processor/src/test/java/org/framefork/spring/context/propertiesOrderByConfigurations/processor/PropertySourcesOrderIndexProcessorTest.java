@@ -0,0 +1,126 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PropertySourcesOrderIndexProcessorTest
+{
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void indexConfigurations() throws IOException
+    {
+        Path source = tempDir.resolve("src/demo/Demo.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, """
+            package demo;
+
+            import org.springframework.boot.autoconfigure.SpringBootApplication;
+            import org.springframework.context.annotation.Configuration;
+            import org.springframework.context.annotation.Import;
+            import org.springframework.context.annotation.PropertySource;
+
+            interface Marker {}
+
+            class Base implements Marker {}
+
+            @Configuration
+            @Import({Demo.Nested.class, Other.class})
+            @PropertySource("classpath:a.properties")
+            @PropertySource(name = "b", value = {"classpath:b1.properties", "classpath:${b2}.properties"})
+            public class Demo extends Base
+            {
+                @Configuration
+                static class Nested {}
+            }
+
+            @SpringBootApplication
+            class Other {}
+            """);
+
+        Path output = tempDir.resolve("classes");
+        assertThat(process(source, output)).isZero();
+
+        Properties index = loadIndex(output);
+        assertThat(index)
+            .containsEntry("demo.Demo.types", "demo.Demo,demo.Marker")
+            .containsEntry("demo.Demo.imports", "demo.Demo$Nested,demo.Other")
+            .containsEntry("demo.Demo.property-source.0.location.0", "classpath:a.properties")
+            .containsEntry("demo.Demo.property-source.1.name", "b")
+            .containsEntry("demo.Demo.property-source.1.location.0", "classpath:b1.properties")
+            .containsEntry("demo.Demo.property-source.1.location.1", "classpath:${b2}.properties")
+            .containsEntry("demo.Demo$Nested.types", "demo.Demo$Nested")
+            .containsEntry("demo.Demo$Nested.imports", "")
+            // the imports of @SpringBootApplication come only through meta-annotations
+            .doesNotContainKeys("demo.Other.types");
+
+        assertThat(Files.readAllLines(output.resolve(PropertySourcesOrderIndexProcessor.INDEX_LOCATION)))
+            .noneMatch(line -> line.startsWith("#"))
+            .isSorted();
+    }
+
+    @Test
+    public void skipUnresolvedHierarchy() throws IOException
+    {
+        Path source = tempDir.resolve("src/demo/Demo.java");
+        Files.createDirectories(source.getParent());
+        Files.writeString(source, """
+            package demo;
+
+            import org.springframework.context.annotation.Configuration;
+            import org.springframework.context.annotation.PropertySource;
+
+            @Configuration
+            @PropertySource("classpath:a.properties")
+            public class Demo extends MissingBase {}
+
+            @Configuration
+            @PropertySource("classpath:b.properties")
+            class Resolved {}
+            """);
+
+        // the missing class fails the compilation, but only after the last round of the processing
+        Path output = tempDir.resolve("classes");
+        process(source, output);
+
+        assertThat(loadIndex(output))
+            .containsEntry("demo.Resolved.types", "demo.Resolved")
+            .doesNotContainKeys("demo.Demo.types", "demo.Demo.imports", "demo.Demo.property-source.0.location.0");
+    }
+
+    private static int process(final Path source, final Path output) throws IOException
+    {
+        Files.createDirectories(output);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        return compiler.run(null, null, null,
+            "-proc:only",
+            "-processor", PropertySourcesOrderIndexProcessor.class.getName(),
+            "-classpath", System.getProperty("java.class.path"),
+            "-d", output.toString(),
+            source.toString()
+        );
+    }
+
+    private static Properties loadIndex(final Path output) throws IOException
+    {
+        Properties index = new Properties();
+        try (Reader reader = Files.newBufferedReader(output.resolve(PropertySourcesOrderIndexProcessor.INDEX_LOCATION))) {
+            index.load(reader);
+        }
+        return index;
+    }
+
+}
@@ -6,7 +6,10 @@ dependencies {
     api(libs.spring.boot.starter)
     api(libs.spring.boot.autoconfigure)
 
+    compileOnly(libs.micrometer.core)
+
     testImplementation(libs.spring.boot.starter.test)
+    testImplementation(libs.micrometer.core)
     testImplementation(libs.junit.jupiter)
     testImplementation(libs.assertj)
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
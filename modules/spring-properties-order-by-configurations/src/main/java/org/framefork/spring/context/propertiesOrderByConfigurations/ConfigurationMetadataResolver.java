@@ -0,0 +1,110 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOverridePrecedenceProperties.MetadataMode;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Resolves the metadata of configuration classes, that is needed to build the import graph.
+ */
+interface ConfigurationMetadataResolver
+{
+
+    /**
+     * @param registeredImports the imports of the whole context, that replace the ones declared in the annotations, or {@code null} to read the annotations
+     */
+    ConfigurationDeclaration resolve(BeanDefinition beanDefinition, @Nullable RegisteredImports registeredImports);
+
+    static ConfigurationMetadataResolver create(final PropertySourcesOverridePrecedenceProperties properties, final ResourceLoader resourceLoader)
+    {
+        ConfigurationMetadataResolver resolver = create(properties.getMetadataMode(), resourceLoader);
+        if (!properties.isUseIndex()) {
+            return resolver;
+        }
+
+        var index = ConfigurationsIndex.load(Objects.requireNonNullElseGet(resourceLoader.getClassLoader(), ClassUtils::getDefaultClassLoader));
+        return index.isEmpty() ? resolver : new IndexedConfigurationMetadataResolver(index, resolver);
+    }
+
+    static ConfigurationMetadataResolver create(final MetadataMode metadataMode, final ResourceLoader resourceLoader)
+    {
+        return switch (metadataMode) {
+            case REFLECTION -> new ReflectionConfigurationMetadataResolver();
+            case ASM -> new MetadataReaderConfigurationMetadataResolver(resourceLoader);
+        };
+    }
+
+    /**
+     * @param className name of the configuration class
+     * @param beanTypes names of the configuration class and of its super types, that other configurations can import it by
+     * @param directImports names of the imported classes, either registered by Spring or declared in {@link org.springframework.context.annotation.Import}
+     * @param propertySources locations of the {@link org.springframework.context.annotation.PropertySource}'s, in the order of declaration
+     */
+    record ConfigurationDeclaration(
+        String className,
+        Set<String> beanTypes,
+        Set<String> directImports,
+        List<PropertySourceDeclaration> propertySources
+    )
+    {
+
+        static ConfigurationDeclaration of(final AnnotationMetadata metadata, final Set<String> beanTypes, @Nullable final RegisteredImports registeredImports)
+        {
+            return new ConfigurationDeclaration(
+                metadata.getClassName(),
+                beanTypes,
+                (registeredImports != null) ? registeredImports.get(metadata.getClassName()) : SpringConfigurationUtils.getDirectImports(metadata),
+                SpringConfigurationUtils.getPropertySourceDeclarations(metadata)
+            );
+        }
+
+        ConfigurationDeclaration withImports(final RegisteredImports registeredImports)
+        {
+            return new ConfigurationDeclaration(className, beanTypes, registeredImports.get(className), propertySources);
+        }
+
+    }
+
+    /**
+     * The imports, that Spring already resolved while parsing the configurations of the context,
+     * so that the {@link org.springframework.context.annotation.Import} annotations don't have to be parsed again.
+     * Unlike the annotations, they also include the classes selected by the {@link org.springframework.context.annotation.ImportSelector}'s,
+     * which are then ordered after the class that imported them, instead of among the roots by their names.
+     *
+     * @param imports imported class names by the importing class names, in the order in which Spring first imported them
+     */
+    record RegisteredImports(
+        Map<String, Set<String>> imports
+    )
+    {
+
+        /**
+         * @return {@code null} when the registry of the {@link org.springframework.context.annotation.ConfigurationClassPostProcessor} is not available or cannot be read
+         */
+        @Nullable
+        static RegisteredImports find(final ConfigurableListableBeanFactory beanFactory)
+        {
+            Map<String, Set<String>> imports = SpringConfigurationUtils.getRegisteredImports(beanFactory);
+            return (imports != null) ? new RegisteredImports(imports) : null;
+        }
+
+        Set<String> get(final String className)
+        {
+            Set<String> result = imports.get(className);
+            return (result != null) ? Collections.unmodifiableSet(result) : Set.of();
+        }
+
+    }
+
+}
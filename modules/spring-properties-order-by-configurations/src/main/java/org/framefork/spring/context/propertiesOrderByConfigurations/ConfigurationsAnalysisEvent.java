@@ -0,0 +1,65 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOverridePrecedencePostProcessor.ConfigurationsAnalysis;
+
+import java.util.function.Consumer;
+
+/**
+ * Covers finding and sorting the configuration classes, which is the part of the post-processor that grows with the application.
+ * Only {@link FlightRecorderEvents} may refer to it.
+ */
+@Name(ConfigurationsAnalysisEvent.NAME)
+@Label("Configurations Analysis")
+@Category({"Spring", "Properties Order by Configurations"})
+@Description("Computing the order of property sources from the imports of configuration classes")
+final class ConfigurationsAnalysisEvent extends Event
+{
+
+    static final String NAME = "org.framefork.spring.PropertiesOrderConfigurationsAnalysis";
+
+    @Label("Configuration Beans")
+    @Description("Number of bean definitions of configuration classes")
+    int beans;
+
+    @Label("Configurations")
+    @Description("Number of configuration classes, that declare or import property sources")
+    int configurations;
+
+    @Label("Import Edges")
+    @Description("Number of imports between the configuration classes, that declare or import property sources")
+    int importEdges;
+
+    @Label("Property Sources")
+    @Description("Number of property sources in the computed order")
+    int propertySources;
+
+    @Label("Precomputed")
+    @Description("The order was computed during the AOT processing")
+    boolean precomputed;
+
+    @Label("Cached")
+    @Description("The order was reused from the cache, without analyzing the configurations")
+    boolean cached;
+
+    static Consumer<ConfigurationsAnalysis> beginAnalysis()
+    {
+        var event = new ConfigurationsAnalysisEvent();
+        event.begin();
+
+        return analysis -> {
+            event.beans = analysis.beans;
+            event.configurations = analysis.configurations;
+            event.importEdges = analysis.importEdges;
+            event.propertySources = analysis.propertySources;
+            event.precomputed = analysis.precomputed;
+            event.cached = analysis.cached;
+            event.commit();
+        };
+    }
+
+}
@@ -1,32 +1,47 @@
 package org.framefork.spring.context.propertiesOrderByConfigurations;
 
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.ConfigurationDeclaration;
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.RegisteredImports;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
 import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.core.Conventions;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.core.type.AnnotationMetadata;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.function.IntFunction;
 
 class ConfigurationsAnalyzer
 {
 
-    private final List<ConfigurationClass> configurations;
+    private static final Logger log = LoggerFactory.getLogger(ConfigurationsAnalyzer.class);
+
+    private static final String CONFIGURATION_CLASS_ATTRIBUTE = Conventions.getQualifiedAttributeName(ConfigurationClassPostProcessor.class, "configurationClass");
+    private static final String CONFIGURATION_CLASS_FULL = "full";
+
     private final List<ConfigurationClass> sortedConfigurationClasses;
 
     ConfigurationsAnalyzer(
@@ -35,8 +50,45 @@ class ConfigurationsAnalyzer
         final ResourceLoader resourceLoader
     )
     {
-        this.configurations = findConfigurations(beanFactory, environment, resourceLoader);
-        this.sortedConfigurationClasses = getConfigurationsSortedByImports();
+        this(beanFactory, environment, resourceLoader, new ReflectionConfigurationMetadataResolver());
+    }
+
+    ConfigurationsAnalyzer(
+        final ConfigurableListableBeanFactory beanFactory,
+        final ConfigurableEnvironment environment,
+        final ResourceLoader resourceLoader,
+        final ConfigurationMetadataResolver metadataResolver
+    )
+    {
+        this(findConfigurations(beanFactory, findConfigurationBeanNames(beanFactory), environment, resourceLoader, metadataResolver));
+    }
+
+    ConfigurationsAnalyzer(final List<ConfigurationClass> configurations)
+    {
+        this(configurations, ApplicationStartup.DEFAULT);
+    }
+
+    ConfigurationsAnalyzer(final List<ConfigurationClass> configurations, final ApplicationStartup applicationStartup)
+    {
+        ImportGraph importGraph;
+        StartupStep graphStep = applicationStartup.start(StartupSteps.BUILD_IMPORT_GRAPH);
+        try {
+            importGraph = buildImportGraph(configurations);
+            graphStep.tag("configurations", String.valueOf(importGraph.size()))
+                .tag("edges", String.valueOf(importGraph.edges()));
+
+        } finally {
+            graphStep.end();
+        }
+
+        StartupStep sortStep = applicationStartup.start(StartupSteps.SORT_CONFIGURATIONS);
+        try {
+            this.sortedConfigurationClasses = getConfigurationsSortedByImports(configurations, importGraph);
+            sortStep.tag("configurations", String.valueOf(sortedConfigurationClasses.size()));
+
+        } finally {
+            sortStep.end();
+        }
     }
 
     List<ConfigurationClass> getSortedConfigurationClasses()
@@ -51,174 +103,314 @@ class ConfigurationsAnalyzer
             .toList();
     }
 
-    private List<ConfigurationClass> findConfigurations(
-        final ConfigurableListableBeanFactory beanFactory,
-        final ConfigurableEnvironment environment,
-        final ResourceLoader resourceLoader
-    )
+    /**
+     * The unresolved counterpart of {@link #getPropertySourcesOrder()}, grouped by the configuration classes.
+     */
+    List<List<PropertySourceDeclaration>> getPropertySourceDeclarationsOrder()
     {
-        List<ConfigurationClass> result = new ArrayList<>();
+        return sortedConfigurationClasses.stream()
+            .map(ConfigurationClass::propertySourceDeclarations)
+            .filter(declarations -> !declarations.isEmpty())
+            .toList();
+    }
 
-        Set<String> beanNames = new HashSet<>();
-        beanNames.addAll(List.of(beanFactory.getBeanNamesForAnnotation(Configuration.class)));
-        beanNames.addAll(List.of(beanFactory.getBeanNamesForAnnotation(AutoConfiguration.class)));
+    /**
+     * A single pass over the bean definitions, that classifies them from the already parsed metadata,
+     * so that the types of the other beans don't have to be predicted or resolved.
+     * The {@link AutoConfiguration} is meta-annotated with {@link Configuration}, so it doesn't need a separate check.
+     * Only the classes with super types, that are not annotated themselves, are searched through their whole hierarchy,
+     * because they can inherit the {@link Configuration} (e.g. through an {@link java.lang.annotation.Inherited} composed annotation).
+     */
+    static Set<String> findConfigurationBeanNames(final ConfigurableListableBeanFactory beanFactory)
+    {
+        Set<String> beanNames = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            if (isConfiguration(beanFactory, beanName)) {
+                beanNames.add(beanName);
+            }
+        }
+        return beanNames;
+    }
 
-        for (String beanName : beanNames) {
-            BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
-            AnnotationMetadata annotations = SpringConfigurationUtils.getBeanDefinitionMetadata(beanDefinition);
+    private static boolean isConfiguration(final ConfigurableListableBeanFactory beanFactory, final String beanName)
+    {
+        BeanDefinition beanDefinition = beanFactory.getBeanDefinition(beanName);
 
-            result.add(new ConfigurationClass(
-                beanDefinition,
-                annotations,
-                SpringConfigurationUtils.getPropertySourcesLocations(annotations, environment, resourceLoader),
-                SpringConfigurationUtils.getDirectImports(annotations)
-            ));
+        // definitions of @Bean methods carry the metadata of the declaring configuration class
+        if (beanDefinition.isAbstract() || beanDefinition.getFactoryMethodName() != null) {
+            return false;
         }
 
-        // stable ordering, to remove the unpredictability of classpath
-        result.sort(Comparator.comparing(config -> config.getBeanClass().getName(), Comparator.nullsLast(Comparator.naturalOrder())));
+        // already checked by the ConfigurationClassPostProcessor, "lite" configurations also include plain components
+        if (CONFIGURATION_CLASS_FULL.equals(beanDefinition.getAttribute(CONFIGURATION_CLASS_ATTRIBUTE))) {
+            return true;
+        }
 
-        return result;
-    }
+        if (beanDefinition instanceof AnnotatedBeanDefinition annotatedBeanDefinition) {
+            AnnotationMetadata metadata = annotatedBeanDefinition.getMetadata();
+            if (metadata.isAnnotated(Configuration.class.getName())) {
+                return true;
+            }
 
-    private List<ConfigurationClass> getConfigurationsSortedByImports()
-    {
-        var dependencyGraphRoots = collectGraphRoots();
+            // the metadata read from the class file doesn't see the annotations inherited from the super types, only a class without any of them can be decided from it
+            String superClassName = metadata.getSuperClassName();
+            if ((superClassName == null || Object.class.getName().equals(superClassName)) && metadata.getInterfaceNames().length == 0) {
+                return false;
+            }
+        }
 
-        // sort configuration classes using BFS on the dependency graph
-        Set<ConfigurationClass> result = new LinkedHashSet<>(configurations.size());
-        for (var root : dependencyGraphRoots.values()) {
-            root.breadthFirstSearch(node -> result.add(node.configurationClass()));
+        if (beanDefinition instanceof AbstractBeanDefinition abstractBeanDefinition && abstractBeanDefinition.hasBeanClass()) {
+            return MergedAnnotations.from(abstractBeanDefinition.getBeanClass(), SearchStrategy.TYPE_HIERARCHY).isPresent(Configuration.class);
         }
 
-        return List.copyOf(result);
+        // searches the whole type hierarchy
+        return beanFactory.findAnnotationOnBean(beanName, Configuration.class) != null;
     }
 
-    private Map<ConfigurationClass, DependencyNode> collectGraphRoots()
+    static List<ConfigurationClass> findConfigurations(
+        final ConfigurableListableBeanFactory beanFactory,
+        final Set<String> beanNames,
+        final ConfigurableEnvironment environment,
+        final ResourceLoader resourceLoader,
+        final ConfigurationMetadataResolver metadataResolver
+    )
     {
-        var dependencies = collectDependencyGraph();
+        return findConfigurations(beanFactory, beanNames, environment, resourceLoader, metadataResolver, 1);
+    }
 
-        // find all roots in the graph, preserving stable ordering
-        var result = new LinkedHashMap<>(dependencies);
-        for (DependencyNode dependencyNode : dependencies.values()) {
-            // configurations that are being imported somewhere are not roots
-            dependencyNode.children().stream()
-                .map(DependencyNode::configurationClass)
-                .forEach(result::remove);
-        }
+    static List<ConfigurationClass> findConfigurations(
+        final ConfigurableListableBeanFactory beanFactory,
+        final Set<String> beanNames,
+        final ConfigurableEnvironment environment,
+        final ResourceLoader resourceLoader,
+        final ConfigurationMetadataResolver metadataResolver,
+        final int parallelism
+    )
+    {
+        return findConfigurations(beanFactory, beanNames, environment, resourceLoader, metadataResolver, parallelism, false);
+    }
 
-        return result;
+    /**
+     * @param parallelism number of threads, that extract the metadata of the configurations, {@code 1} extracts them on the calling thread
+     * @param useRegisteredImports whether to take the imports from the registry of the {@link ConfigurationClassPostProcessor} instead of the annotations
+     */
+    static List<ConfigurationClass> findConfigurations(
+        final ConfigurableListableBeanFactory beanFactory,
+        final Set<String> beanNames,
+        final ConfigurableEnvironment environment,
+        final ResourceLoader resourceLoader,
+        final ConfigurationMetadataResolver metadataResolver,
+        final int parallelism,
+        final boolean useRegisteredImports
+    )
+    {
+        return findConfigurations(
+            findDeclarations(beanFactory, beanNames, metadataResolver, parallelism, useRegisteredImports ? RegisteredImports.find(beanFactory) : null),
+            environment,
+            resourceLoader,
+            parallelism
+        );
     }
 
-    private Map<ConfigurationClass, DependencyNode> collectDependencyGraph()
+    /**
+     * @param declared the configurations, the roots of the import graph take precedence in the order of this list
+     */
+    static List<ConfigurationClass> findConfigurations(
+        final List<ConfigurationDeclaration> declared,
+        final ConfigurableEnvironment environment,
+        final ResourceLoader resourceLoader,
+        final int parallelism
+    )
     {
-        var configurationClassTypes = collectAllConfigurationTypes();
+        return pruneToPropertySources(declared, environment, resourceLoader, parallelism);
+    }
 
-        // we want to preserve stable ordering
-        Map<ConfigurationClass, DependencyNode> result = new LinkedHashMap<>();
-        configurations.forEach(configurationClass -> result.put(configurationClass, new DependencyNode(configurationClass)));
+    /**
+     * Only the declarations are kept, the bean definitions and their metadata are not referenced by any result of the analysis.
+     *
+     * When the registry of the imports is available, it's the only source of the imports and the annotations are not parsed for them again.
+     *
+     * @param registeredImports the imports already resolved by the {@link ConfigurationClassPostProcessor}, or {@code null} to read the annotations
+     * @return declarations of the configurations, sorted by their class names
+     */
+    static List<ConfigurationDeclaration> findDeclarations(
+        final ConfigurableListableBeanFactory beanFactory,
+        final Set<String> beanNames,
+        final ConfigurationMetadataResolver metadataResolver,
+        final int parallelism,
+        @Nullable final RegisteredImports registeredImports
+    )
+    {
+        List<ConfigurationDeclaration> declared = new ArrayList<>(ParallelExtraction.map(
+            List.copyOf(beanNames),
+            parallelism,
+            beanName -> resolveDeclaration(beanFactory.getBeanDefinition(beanName), metadataResolver, registeredImports)
+        ));
 
-        // build dependency graph using imports on individual configuration classes
-        for (var entry : result.entrySet()) {
-            ConfigurationClass configurationClass = entry.getKey();
-            DependencyNode dependencyNode = entry.getValue();
+        // stable ordering, to remove the unpredictability of classpath and of the parallel extraction
+        declared.sort(Comparator.comparing(ConfigurationDeclaration::className));
 
-            for (Class<?> directImport : configurationClass.directImports()) {
-                ConfigurationClass importedConfigurationClass = configurationClassTypes.get(directImport);
-                if (importedConfigurationClass == null) {
-                    continue;
-                }
-                dependencyNode.addChild(
-                    Objects.requireNonNull(result.get(importedConfigurationClass), "result.get(importedConfigurationClass) must not be null")
-                );
+        return declared;
+    }
+
+    /**
+     * Classes without any super types (except {@link Object}) are decided purely from the already parsed metadata,
+     * the hierarchy is resolved only for the rest.
+     */
+    private static ConfigurationDeclaration resolveDeclaration(
+        final BeanDefinition beanDefinition,
+        final ConfigurationMetadataResolver metadataResolver,
+        @Nullable final RegisteredImports registeredImports
+    )
+    {
+        if (beanDefinition instanceof AnnotatedBeanDefinition annotatedBeanDefinition) {
+            AnnotationMetadata metadata = annotatedBeanDefinition.getMetadata();
+            String superClassName = metadata.getSuperClassName();
+            if ((superClassName == null || Object.class.getName().equals(superClassName)) && metadata.getInterfaceNames().length == 0) {
+                return ConfigurationDeclaration.of(metadata, Set.of(metadata.getClassName()), registeredImports);
             }
         }
 
-        return result;
+        return metadataResolver.resolve(beanDefinition, registeredImports);
     }
 
-    private Map<Class<?>, ConfigurationClass> collectAllConfigurationTypes()
+    /**
+     * Only the configurations, that declare property sources, and the ones that (transitively) import them, can affect the order.
+     * The rest is dropped before any of them are fully analyzed, and the imports of the remaining configurations
+     * are narrowed down to those, that resolve to another remaining configuration,
+     * so that the graph of the remaining configurations has exactly the same edges, as it would have had in the whole graph.
+     * The imports are resolved to the class names of the imported configurations, so that the super types don't have to be kept.
+     */
+    private static List<ConfigurationClass> pruneToPropertySources(
+        final List<ConfigurationDeclaration> declared,
+        final ConfigurableEnvironment environment,
+        final ResourceLoader resourceLoader,
+        final int parallelism
+    )
     {
-        Map<Class<?>, ConfigurationClass> result = new HashMap<>();
-        Set<Class<?>> duplicates = new HashSet<>();
+        Map<String, Integer> allTypes = collectAllConfigurationTypes(declared.size(), index -> declared.get(index).beanTypes());
+        ImportGraph importGraph = buildImportGraph(declared.size(), allTypes, index -> declared.get(index).directImports());
 
-        for (ConfigurationClass configuration : configurations) {
-            for (Class<?> beanType : configuration.getAllBeanTypes()) {
-                if (result.containsKey(beanType)) {
-                    duplicates.add(beanType);
-                }
-                result.put(beanType, configuration);
+        boolean[] withPropertySources = new boolean[declared.size()];
+        for (int index = 0; index < declared.size(); index++) {
+            withPropertySources[index] = !declared.get(index).propertySources().isEmpty();
+        }
+        boolean[] relevant = importGraph.reaching(withPropertySources);
+
+        List<ConfigurationDeclaration> relevantDeclared = new ArrayList<>();
+        for (int index = 0; index < declared.size(); index++) {
+            if (relevant[index]) {
+                relevantDeclared.add(declared.get(index));
             }
         }
 
-        duplicates.forEach(result::remove);
+        var locationResolver = new PropertySourceLocationResolver(environment, resourceLoader);
+        List<ConfigurationClass> result = ParallelExtraction.map(relevantDeclared, parallelism, declaration -> {
+            Set<String> directImports = new LinkedHashSet<>();
+            for (String directImport : declaration.directImports()) {
+                Integer importedIndex = allTypes.get(directImport);
+                if (importedIndex != null && relevant[importedIndex]) {
+                    directImports.add(declared.get(importedIndex).className());
+                }
+            }
+
+            return new ConfigurationClass(
+                declaration.className(),
+                declaration.propertySources(),
+                SpringConfigurationUtils.getPropertySourcesLocations(declaration.propertySources(), locationResolver),
+                Collections.unmodifiableSet(directImports)
+            );
+        });
 
-        return Map.copyOf(result);
+        log.debug("Pruned {} of {} configurations, that neither declare nor import any property sources", declared.size() - result.size(), declared.size());
+        log.debug("Resolved {} unique property source locations", locationResolver.size());
+
+        return result;
     }
 
-    record DependencyNode(
-        ConfigurationClass configurationClass,
-        List<DependencyNode> children
+    static List<ConfigurationClass> getConfigurationsSortedByImports(
+        final List<ConfigurationClass> configurations,
+        final ImportGraph importGraph
     )
     {
+        // sort configuration classes using BFS on the dependency graph, starting from each root in their stable order
+        int[] sorted = importGraph.sortedByImports();
 
-        DependencyNode(final ConfigurationClass configurationClass)
-        {
-            this(configurationClass, new ArrayList<>());
+        List<ConfigurationClass> result = new ArrayList<>(sorted.length);
+        for (int index : sorted) {
+            result.add(configurations.get(index));
         }
 
-        void addChild(final DependencyNode node)
-        {
-            children.add(Objects.requireNonNull(node, "node must not be null"));
-        }
+        return List.copyOf(result);
+    }
 
-        void breadthFirstSearch(final Consumer<DependencyNode> visitor)
-        {
-            Set<DependencyNode> visited = new HashSet<>();
-            Deque<DependencyNode> queue = new ArrayDeque<>();
+    static ImportGraph buildImportGraph(final List<ConfigurationClass> configurations)
+    {
+        return buildImportGraph(
+            configurations.size(),
+            collectAllConfigurationTypes(configurations.size(), index -> Set.of(configurations.get(index).className())),
+            index -> configurations.get(index).directImports()
+        );
+    }
 
-            Consumer<DependencyNode> queueingVisitor = node -> {
-                if (visited.add(node)) { // true if set did not already contain the specified element
-                    queue.add(node);
-                    visitor.accept(node);
+    private static ImportGraph buildImportGraph(
+        final int size,
+        final Map<String, Integer> configurationClassTypes,
+        final IntFunction<Set<String>> directImports
+    )
+    {
+        // build dependency graph using imports on individual configuration classes, the indexes preserve the stable ordering
+        var result = ImportGraph.builder(size);
+        for (int index = 0; index < size; index++) {
+            for (String directImport : directImports.apply(index)) {
+                Integer importedIndex = configurationClassTypes.get(directImport);
+                if (importedIndex == null) {
+                    continue;
                 }
-            };
+                result.addImport(index, importedIndex);
+            }
+        }
 
-            // start with root
-            queueingVisitor.accept(this);
+        return result.build();
+    }
 
-            // visit children and queue them for inspection
-            while (!queue.isEmpty()) {
-                queue.removeFirst()
-                    .children()
-                    .forEach(queueingVisitor);
+    private static Map<String, Integer> collectAllConfigurationTypes(final int size, final IntFunction<Set<String>> beanTypes)
+    {
+        Map<String, Integer> result = new HashMap<>();
+        Set<String> duplicates = new HashSet<>();
+
+        for (int index = 0; index < size; index++) {
+            for (String beanType : beanTypes.apply(index)) {
+                if (result.containsKey(beanType)) {
+                    duplicates.add(beanType);
+                }
+                result.put(beanType, index);
             }
         }
 
+        duplicates.forEach(result::remove);
+
+        return result;
     }
 
+    /**
+     * A slim projection of a configuration class, that doesn't reference its bean definition, class or annotation metadata,
+     * so that nothing of the introspection is retained by the analysis.
+     *
+     * @param directImports class names of the analyzed configurations, that this one imports
+     */
     record ConfigurationClass(
-        BeanDefinition beanDefinition,
-        AnnotationMetadata annotations,
+        String className,
+        List<PropertySourceDeclaration> propertySourceDeclarations,
         Set<PropertySourceResource> propertySources,
-        Set<Class<?>> directImports
+        Set<String> directImports
     )
     {
 
-        public Set<Class<?>> getAllBeanTypes()
-        {
-            return SpringConfigurationUtils.getAllBeanTypes(beanDefinition);
-        }
-
-        public Class<?> getBeanClass()
-        {
-            return SpringConfigurationUtils.getBeanDefinitionClass(beanDefinition);
-        }
-
         @Override
         public String toString()
         {
-            return "ConfigurationClass[" + getBeanClass() + "]";
+            return "ConfigurationClass[" + className + "]";
         }
 
     }
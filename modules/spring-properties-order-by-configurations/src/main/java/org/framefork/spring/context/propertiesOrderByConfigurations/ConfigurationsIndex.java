@@ -0,0 +1,125 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.ConfigurationDeclaration;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Metadata of configuration classes, precomputed at build time by the {@code spring-properties-order-by-configurations-processor}.
+ *
+ * <p>Every class in the index is described by the following keys:
+ * <ul>
+ *     <li>{@code <class>.types} - the class and its super types, comma separated</li>
+ *     <li>{@code <class>.imports} - direct imports, comma separated</li>
+ *     <li>{@code <class>.property-source.<i>.name} - optional name of the i-th property source</li>
+ *     <li>{@code <class>.property-source.<i>.location.<j>} - j-th location of the i-th property source</li>
+ * </ul>
+ */
+final class ConfigurationsIndex
+{
+
+    static final String INDEX_LOCATION = "META-INF/spring-properties-order-by-configurations.index";
+
+    private static final String TYPES_SUFFIX = ".types";
+    private static final String IMPORTS_SUFFIX = ".imports";
+    private static final String PROPERTY_SOURCE_INFIX = ".property-source.";
+
+    private final Map<String, ConfigurationDeclaration> declarations;
+
+    private ConfigurationsIndex(final Map<String, ConfigurationDeclaration> declarations)
+    {
+        this.declarations = declarations;
+    }
+
+    /**
+     * Merges the indexes of all the jars on the classpath.
+     */
+    static ConfigurationsIndex load(@Nullable final ClassLoader classLoader)
+    {
+        try {
+            return parse(PropertiesLoaderUtils.loadAllProperties(INDEX_LOCATION, classLoader));
+
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Cannot load '%s': %s", INDEX_LOCATION, e.getMessage()), e);
+        }
+    }
+
+    static ConfigurationsIndex parse(final Properties properties)
+    {
+        Map<String, ConfigurationDeclaration> result = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            if (!key.endsWith(TYPES_SUFFIX)) {
+                continue;
+            }
+
+            String className = key.substring(0, key.length() - TYPES_SUFFIX.length());
+            result.put(className, new ConfigurationDeclaration(
+                className,
+                commaDelimitedSet(properties.getProperty(key)),
+                commaDelimitedSet(properties.getProperty(className + IMPORTS_SUFFIX)),
+                parsePropertySources(properties, className)
+            ));
+        }
+
+        return new ConfigurationsIndex(Collections.unmodifiableMap(result));
+    }
+
+    boolean isEmpty()
+    {
+        return declarations.isEmpty();
+    }
+
+    @Nullable
+    ConfigurationDeclaration get(final String className)
+    {
+        return declarations.get(className);
+    }
+
+    private static List<PropertySourceDeclaration> parsePropertySources(final Properties properties, final String className)
+    {
+        List<PropertySourceDeclaration> result = new ArrayList<>();
+        for (int i = 0; ; i++) {
+            String prefix = className + PROPERTY_SOURCE_INFIX + i;
+            String name = properties.getProperty(prefix + ".name");
+
+            String firstLocation = properties.getProperty(prefix + ".location.0");
+            if (firstLocation == null && name == null) {
+                break;
+            }
+
+            for (int j = 0; ; j++) {
+                String location = properties.getProperty(prefix + ".location." + j);
+                if (location == null) {
+                    break;
+                }
+                result.add(new PropertySourceDeclaration(name, location));
+            }
+        }
+
+        return Collections.unmodifiableList(result);
+    }
+
+    private static Set<String> commaDelimitedSet(@Nullable final String value)
+    {
+        if (!StringUtils.hasLength(value)) {
+            return Set.of();
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        Collections.addAll(result, StringUtils.commaDelimitedListToStringArray(value));
+        return Collections.unmodifiableSet(result);
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.ConfigurationDeclaration;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Declarations of the configuration classes of a context, that its child contexts (e.g. of a {@link org.springframework.boot.builder.SpringApplicationBuilder} hierarchy)
+ * reuse, so that they introspect only the configuration classes they add themselves.
+ *
+ * <p>The locations of the declarations are kept unresolved, because the child resolves them against its own environment.
+ * Their imports are kept as they were taken from the registry or the annotations, because they are properties of the classes, not of the contexts.
+ *
+ * @param declarations by the class names, of the configuration classes of the context and its ancestors, that declare or import any property sources
+ */
+record ContextConfigurations(
+    Map<String, ConfigurationDeclaration> declarations
+)
+{
+
+    static final String BEAN_NAME = "org.framefork.spring.context.propertiesOrderByConfigurations.contextConfigurations";
+
+    static final ContextConfigurations NONE = new ContextConfigurations(Map.of());
+
+    static void register(final ConfigurableListableBeanFactory beanFactory, final ContextConfigurations configurations)
+    {
+        if (!beanFactory.containsSingleton(BEAN_NAME)) {
+            beanFactory.registerSingleton(BEAN_NAME, configurations);
+        }
+    }
+
+    static ContextConfigurations findInParent(final ConfigurableListableBeanFactory beanFactory)
+    {
+        BeanFactory parent = beanFactory.getParentBeanFactory();
+        return (parent instanceof ConfigurableListableBeanFactory parentBeanFactory && parentBeanFactory.containsSingleton(BEAN_NAME))
+            ? parentBeanFactory.getBean(BEAN_NAME, ContextConfigurations.class)
+            : NONE;
+    }
+
+    /**
+     * Only the configurations, that survived the pruning of the analysis, can affect the order of a child context,
+     * the ones that neither declare nor import any property sources are not kept.
+     *
+     * @param declarations of all the analyzed configurations, including the ones inherited from the ancestors
+     * @param analyzedClassNames of the configurations, that remained after the pruning
+     */
+    static ContextConfigurations of(final List<ConfigurationDeclaration> declarations, final Set<String> analyzedClassNames)
+    {
+        Map<String, ConfigurationDeclaration> result = new HashMap<>();
+        for (ConfigurationDeclaration declaration : declarations) {
+            if (analyzedClassNames.contains(declaration.className())) {
+                result.put(declaration.className(), declaration);
+            }
+        }
+
+        return new ContextConfigurations(Map.copyOf(result));
+    }
+
+}
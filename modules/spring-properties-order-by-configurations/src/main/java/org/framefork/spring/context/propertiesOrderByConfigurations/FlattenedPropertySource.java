@@ -0,0 +1,91 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.origin.Origin;
+import org.springframework.boot.origin.OriginLookup;
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A block of consecutive property sources merged into a single map, so that a lookup over the whole block is one hash probe.
+ * The values are taken over as they are, including their {@link OriginTrackedValue origins}.
+ */
+final class FlattenedPropertySource extends EnumerablePropertySource<Map<String, Object>> implements OriginLookup<String>
+{
+
+    static final String NAME_PREFIX = "flattened:";
+
+    private final List<String> flattenedNames;
+
+    private FlattenedPropertySource(final String name, final Map<String, Object> source, final List<String> flattenedNames)
+    {
+        super(name, source);
+        this.flattenedNames = flattenedNames;
+    }
+
+    /**
+     * @param propertySources in the order of their precedence, the values of the earlier ones win
+     */
+    static FlattenedPropertySource of(final List<EnumerablePropertySource<?>> propertySources)
+    {
+        Map<String, Object> index = new HashMap<>();
+
+        // from the lowest precedence, so that every source overwrites the ones it overrides
+        for (int i = propertySources.size() - 1; i >= 0; i--) {
+            EnumerablePropertySource<?> propertySource = propertySources.get(i);
+            for (String propertyName : propertySource.getPropertyNames()) {
+                Object value = (propertySource instanceof MapPropertySource mapPropertySource)
+                    ? mapPropertySource.getSource().get(propertyName)
+                    : propertySource.getProperty(propertyName);
+                if (value != null) {
+                    index.put(propertyName, value);
+                }
+            }
+        }
+
+        List<String> names = propertySources.stream().map(EnumerablePropertySource::getName).toList();
+        return new FlattenedPropertySource(NAME_PREFIX + names.get(0), Collections.unmodifiableMap(index), names);
+    }
+
+    /**
+     * Names of the merged property sources, in the order of their precedence.
+     */
+    List<String> getFlattenedNames()
+    {
+        return flattenedNames;
+    }
+
+    @Override
+    public boolean containsProperty(final String name)
+    {
+        return source.containsKey(name);
+    }
+
+    @Override
+    public String[] getPropertyNames()
+    {
+        return source.keySet().toArray(String[]::new);
+    }
+
+    @Nullable
+    @Override
+    public Object getProperty(final String name)
+    {
+        Object value = source.get(name);
+        return (value instanceof OriginTrackedValue originTrackedValue) ? originTrackedValue.getValue() : value;
+    }
+
+    @Nullable
+    @Override
+    public Origin getOrigin(final String key)
+    {
+        return (source.get(key) instanceof OriginTrackedValue originTrackedValue) ? originTrackedValue.getOrigin() : null;
+    }
+
+}
@@ -0,0 +1,42 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOverridePrecedencePostProcessor.ConfigurationsAnalysis;
+
+import java.util.function.Consumer;
+
+/**
+ * The only entry point to the JFR events, that loads their classes only when the {@code jdk.jfr} module is present,
+ * because a runtime image linked without it would fail with a {@link NoClassDefFoundError} on the first event.
+ * Nothing in this class refers to the {@code jdk.jfr} types, so that it can be loaded on any runtime.
+ */
+final class FlightRecorderEvents
+{
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+    private static final Consumer<ConfigurationsAnalysis> NO_ANALYSIS = analysis -> {};
+
+    private static final Runnable NO_MOVE = () -> {};
+
+    private FlightRecorderEvents()
+    {
+    }
+
+    /**
+     * @return commits the event, with the outcome of the analysis, that began now
+     */
+    static Consumer<ConfigurationsAnalysis> beginConfigurationsAnalysis()
+    {
+        return AVAILABLE ? ConfigurationsAnalysisEvent.beginAnalysis() : NO_ANALYSIS;
+    }
+
+    /**
+     * @param after name of the property source it's placed after, empty when it's placed first
+     * @return commits the event, once the property source was moved
+     */
+    static Runnable beginPropertySourceMove(final String propertySource, final String after)
+    {
+        return AVAILABLE ? PropertySourceMoveEvent.beginMove(propertySource, after) : NO_MOVE;
+    }
+
+}
@@ -0,0 +1,195 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Import dependency graph between configuration classes, that are identified by their index in the analyzed list.
+ *
+ * <p>The imports are stored in a compressed sparse row layout - the imports of configuration {@code i}
+ * are {@code imports[importsOffsets[i]]} to {@code imports[importsOffsets[i + 1] - 1]}.
+ */
+final class ImportGraph
+{
+
+    private final int[] importsOffsets;
+    private final int[] imports;
+
+    private ImportGraph(final int[] importsOffsets, final int[] imports)
+    {
+        this.importsOffsets = importsOffsets;
+        this.imports = imports;
+    }
+
+    static Builder builder(final int size)
+    {
+        return new Builder(size);
+    }
+
+    int size()
+    {
+        return importsOffsets.length - 1;
+    }
+
+    int edges()
+    {
+        return imports.length;
+    }
+
+    /**
+     * Configurations that are not imported anywhere, in the order of their indexes.
+     */
+    int[] roots()
+    {
+        boolean[] imported = new boolean[size()];
+        for (int target : imports) {
+            imported[target] = true;
+        }
+
+        int[] result = new int[size()];
+        int count = 0;
+        for (int node = 0; node < imported.length; node++) {
+            if (!imported[node]) {
+                result[count++] = node;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Visits every node reachable from the roots exactly once, in the order of a BFS from each root.
+     *
+     * <p>The visited set is shared by all the roots, which makes this a single O(V+E) pass.
+     * Everything reachable from an already visited node has also been visited,
+     * so skipping those nodes produces the same order as a separate BFS per root, that ignores repeated nodes.
+     * Configurations that are not reachable from any root (cycles without a root) are not part of the result.
+     */
+    int[] sortedByImports()
+    {
+        boolean[] visited = new boolean[size()];
+
+        // every node is queued at most once, so the result doubles as the queue
+        int[] queue = new int[size()];
+        int head = 0;
+        int tail = 0;
+
+        for (int root : roots()) {
+            // start with root
+            visited[root] = true;
+            queue[tail++] = root;
+
+            // visit children and queue them for inspection
+            while (head < tail) {
+                int node = queue[head++];
+                for (int i = importsOffsets[node]; i < importsOffsets[node + 1]; i++) {
+                    int child = imports[i];
+                    if (!visited[child]) {
+                        visited[child] = true;
+                        queue[tail++] = child;
+                    }
+                }
+            }
+        }
+
+        return Arrays.copyOf(queue, tail);
+    }
+
+    /**
+     * Configurations, from which at least one of the targets can be reached by following the imports, including the targets themselves.
+     */
+    boolean[] reaching(final boolean[] targets)
+    {
+        // the reversed edges, in the same compressed sparse row layout
+        int[] importedByOffsets = new int[size() + 1];
+        for (int target : imports) {
+            importedByOffsets[target + 1]++;
+        }
+        for (int node = 0; node < size(); node++) {
+            importedByOffsets[node + 1] += importedByOffsets[node];
+        }
+
+        int[] importedBy = new int[imports.length];
+        int[] nextImportedBy = Arrays.copyOf(importedByOffsets, size());
+        for (int node = 0; node < size(); node++) {
+            for (int i = importsOffsets[node]; i < importsOffsets[node + 1]; i++) {
+                importedBy[nextImportedBy[imports[i]]++] = node;
+            }
+        }
+
+        boolean[] result = new boolean[size()];
+        int[] queue = new int[size()];
+        int head = 0;
+        int tail = 0;
+
+        for (int node = 0; node < size(); node++) {
+            if (targets[node]) {
+                result[node] = true;
+                queue[tail++] = node;
+            }
+        }
+
+        while (head < tail) {
+            int node = queue[head++];
+            for (int i = importedByOffsets[node]; i < importedByOffsets[node + 1]; i++) {
+                int importer = importedBy[i];
+                if (!result[importer]) {
+                    result[importer] = true;
+                    queue[tail++] = importer;
+                }
+            }
+        }
+
+        return result;
+    }
+
+    static final class Builder
+    {
+
+        private final int[] importsOffsets;
+        private int[] imports = new int[16];
+        private int edges;
+        private int node;
+
+        private Builder(final int size)
+        {
+            this.importsOffsets = new int[size + 1];
+        }
+
+        /**
+         * The imports have to be added in the order of the importing configurations,
+         * imports of a single configuration keep the order in which they were added.
+         */
+        Builder addImport(final int from, final int to)
+        {
+            int size = importsOffsets.length - 1;
+            Objects.checkIndex(from, size);
+            Objects.checkIndex(to, size);
+            if (from < node) {
+                throw new IllegalStateException(String.format("Imports of configuration %d must be added before the imports of configuration %d", from, node));
+            }
+
+            while (node < from) {
+                importsOffsets[++node] = edges;
+            }
+
+            if (edges == imports.length) {
+                imports = Arrays.copyOf(imports, imports.length * 2);
+            }
+            imports[edges++] = to;
+
+            return this;
+        }
+
+        ImportGraph build()
+        {
+            while (node < importsOffsets.length - 1) {
+                importsOffsets[++node] = edges;
+            }
+
+            return new ImportGraph(importsOffsets, Arrays.copyOf(imports, edges));
+        }
+
+    }
+
+}
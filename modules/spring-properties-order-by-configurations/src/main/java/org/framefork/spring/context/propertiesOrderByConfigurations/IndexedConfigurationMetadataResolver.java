@@ -0,0 +1,34 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.config.BeanDefinition;
+
+/**
+ * Looks up the configuration classes in the build time index and introspects only those,
+ * that are not indexed (e.g. because they come from a jar that was not compiled with the annotation processor).
+ */
+final class IndexedConfigurationMetadataResolver implements ConfigurationMetadataResolver
+{
+
+    private final ConfigurationsIndex index;
+    private final ConfigurationMetadataResolver fallback;
+
+    IndexedConfigurationMetadataResolver(final ConfigurationsIndex index, final ConfigurationMetadataResolver fallback)
+    {
+        this.index = index;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public ConfigurationDeclaration resolve(final BeanDefinition beanDefinition, @Nullable final RegisteredImports registeredImports)
+    {
+        ConfigurationDeclaration declaration = index.get(SpringConfigurationUtils.getBeanDefinitionClassName(beanDefinition));
+        if (declaration != null) {
+            // the index knows only the imports declared in the annotations
+            return (registeredImports != null) ? declaration.withImports(registeredImports) : declaration;
+        }
+
+        return fallback.resolve(beanDefinition, registeredImports);
+    }
+
+}
@@ -0,0 +1,48 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PropertySourceFactory;
+import org.springframework.util.StringUtils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+/**
+ * Registers the {@link org.springframework.context.annotation.PropertySource} with its resource unread,
+ * the post-processor still puts it into the computed order, and the resource is parsed on the first lookup of any property.
+ *
+ * <pre>{@code
+ * @PropertySource(value = "classpath:shared.properties", factory = LazyPropertySourceFactory.class)
+ * }</pre>
+ */
+public class LazyPropertySourceFactory implements PropertySourceFactory
+{
+
+    @Override
+    public PropertySource<?> createPropertySource(@Nullable final String name, final EncodedResource resource) throws IOException
+    {
+        // reported right away, so that the ignoreResourceNotFound works the same as with the default factory
+        if (!resource.getResource().exists()) {
+            throw new FileNotFoundException(String.format("%s cannot be opened because it does not exist", resource.getResource().getDescription()));
+        }
+
+        return new LazyResourcePropertySource(StringUtils.hasText(name) ? name : getNameForResource(resource.getResource()), resource);
+    }
+
+    /**
+     * Same as the {@link org.springframework.core.io.support.ResourcePropertySource} names the resources,
+     * which is what the post-processor expects.
+     */
+    private static String getNameForResource(final Resource resource)
+    {
+        String name = resource.getDescription();
+        if (!StringUtils.hasText(name)) {
+            name = resource.getClass().getSimpleName() + "@" + System.identityHashCode(resource);
+        }
+        return name;
+    }
+
+}
@@ -0,0 +1,41 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.MutablePropertySources;
+
+import java.util.List;
+
+/**
+ * Reads the resources of all the {@link LazyResourcePropertySource}'s at once, which pays off when they are slow to open
+ * (e.g. on network volumes), because reading them one by one on the first lookups would add up all the latencies.
+ */
+final class LazyPropertySourcesPreloading
+{
+
+    private static final Logger log = LoggerFactory.getLogger(LazyPropertySourcesPreloading.class);
+
+    private LazyPropertySourcesPreloading()
+    {
+    }
+
+    /**
+     * The property sources are already in their final positions, so the order in which they are read doesn't matter.
+     *
+     * @return number of read resources
+     */
+    static int preload(final MutablePropertySources propertySources, final int maxThreads)
+    {
+        List<LazyResourcePropertySource> unloaded = propertySources.stream()
+            .filter(LazyResourcePropertySource.class::isInstance)
+            .map(LazyResourcePropertySource.class::cast)
+            .filter(propertySource -> !propertySource.isLoaded())
+            .toList();
+
+        ParallelExtraction.mapBlocking(unloaded, maxThreads, LazyResourcePropertySource::load);
+
+        log.debug("Preloaded {} lazy property sources", unloaded.size());
+        return unloaded.size();
+    }
+
+}
@@ -0,0 +1,103 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link org.springframework.core.io.support.ResourcePropertySource}, that reads its resource only once it's needed.
+ *
+ * <p>It's enumerable, so it's read as soon as anything enumerates the property names, which includes Spring Boot's
+ * {@link org.springframework.boot.context.properties.bind.Binder} whenever it binds a prefix (e.g. of a {@code @ConfigurationProperties} bean) and reaches this property source.
+ * Only the property sources, that are reached by no such binding and whose properties are all answered by property sources of higher precedence, are never read.
+ * It stays enumerable anyway, because the Binder can't bind maps and collections from a property source, that is not.
+ */
+final class LazyResourcePropertySource extends EnumerablePropertySource<EncodedResource>
+{
+
+    /**
+     * Not a monitor, so that a virtual thread, that reads the resource, doesn't pin its carrier thread.
+     */
+    private final ReentrantLock loadLock = new ReentrantLock();
+
+    @Nullable
+    private volatile Map<String, Object> properties;
+
+    LazyResourcePropertySource(final String name, final EncodedResource resource)
+    {
+        super(name, resource);
+    }
+
+    boolean isLoaded()
+    {
+        return properties != null;
+    }
+
+    /**
+     * Reads the resource, unless it was already read, concurrent calls read it only once.
+     */
+    Map<String, Object> load()
+    {
+        Map<String, Object> result = properties;
+        if (result == null) {
+            loadLock.lock();
+            try {
+                result = properties;
+                if (result == null) {
+                    result = readProperties();
+                    properties = result;
+                }
+
+            } finally {
+                loadLock.unlock();
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public boolean containsProperty(final String name)
+    {
+        return load().containsKey(name);
+    }
+
+    @Override
+    public String[] getPropertyNames()
+    {
+        return load().keySet().toArray(String[]::new);
+    }
+
+    @Nullable
+    @Override
+    public Object getProperty(final String name)
+    {
+        return load().get(name);
+    }
+
+    private Map<String, Object> readProperties()
+    {
+        try {
+            Properties loaded = PropertiesLoaderUtils.loadProperties(source);
+
+            Map<String, Object> result = new HashMap<>();
+            for (String propertyName : loaded.stringPropertyNames()) {
+                result.put(propertyName, loaded.getProperty(propertyName));
+            }
+
+            return Collections.unmodifiableMap(result);
+
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Cannot read properties from %s: %s", source.getResource().getDescription(), e.getMessage()), e);
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.core.type.classreading.CachingMetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderFactory;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads the configuration classes and their hierarchy from the class files using ASM,
+ * so that the analysis works purely with class names and never triggers class loading.
+ */
+final class MetadataReaderConfigurationMetadataResolver implements ConfigurationMetadataResolver
+{
+
+    private final MetadataReaderFactory metadataReaderFactory;
+    private final Map<String, Set<String>> superTypeNames = new ConcurrentHashMap<>();
+
+    MetadataReaderConfigurationMetadataResolver(final ResourceLoader resourceLoader)
+    {
+        this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
+    }
+
+    @Override
+    public ConfigurationDeclaration resolve(final BeanDefinition beanDefinition, @Nullable final RegisteredImports registeredImports)
+    {
+        AnnotationMetadata metadata = getMetadata(beanDefinition);
+        return ConfigurationDeclaration.of(metadata, getAllBeanTypeNames(metadata.getClassName()), registeredImports);
+    }
+
+    private AnnotationMetadata getMetadata(final BeanDefinition beanDefinition)
+    {
+        if (beanDefinition instanceof AnnotatedBeanDefinition annotatedBeanDefinition) {
+            return annotatedBeanDefinition.getMetadata();
+        }
+
+        return getMetadataReader(SpringConfigurationUtils.getBeanDefinitionClassName(beanDefinition)).getAnnotationMetadata();
+    }
+
+    private Set<String> getAllBeanTypeNames(final String className)
+    {
+        Set<String> result = new LinkedHashSet<>();
+        result.add(className);
+        result.addAll(getAllSuperTypeNames(className));
+
+        return Collections.unmodifiableSet(result);
+    }
+
+    /**
+     * Mirrors {@link SpringConfigurationUtils#getAllSuperTypes(Class)}, so that both modes produce the same graph.
+     */
+    private Set<String> getAllSuperTypeNames(final String className)
+    {
+        // shared hierarchies are resolved only once per analysis (computeIfAbsent doesn't allow the recursion)
+        Set<String> cached = superTypeNames.get(className);
+        if (cached != null) {
+            return cached;
+        }
+
+        Set<String> types = new LinkedHashSet<>();
+
+        ClassMetadata classMetadata = getMetadataReader(className).getClassMetadata();
+
+        String superClassName = classMetadata.getSuperClassName();
+        if (superClassName != null && !Object.class.getName().equals(superClassName)) {
+            types.add(className);
+            types.addAll(getAllSuperTypeNames(superClassName));
+        }
+
+        for (String interfaceName : classMetadata.getInterfaceNames()) {
+            types.add(interfaceName);
+            types.addAll(getAllSuperTypeNames(interfaceName));
+        }
+
+        Set<String> result = Collections.unmodifiableSet(types);
+        superTypeNames.putIfAbsent(className, result);
+        return result;
+    }
+
+    private MetadataReader getMetadataReader(final String className)
+    {
+        try {
+            return metadataReaderFactory.getMetadataReader(className);
+
+        } catch (IOException e) {
+            throw new IllegalStateException(String.format("Cannot read metadata of class '%s': %s", className, e.getMessage()), e);
+        }
+    }
+
+}
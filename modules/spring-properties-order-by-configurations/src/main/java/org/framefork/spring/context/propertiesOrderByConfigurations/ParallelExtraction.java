@@ -0,0 +1,134 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Maps the configurations, or the resources of their property sources, on multiple threads, the results keep the order of the inputs.
+ *
+ * <p>The workers use the context ClassLoader of the calling thread, because the configuration classes
+ * are resolved by name with it (the common fork-join pool would use the system ClassLoader instead).
+ */
+final class ParallelExtraction
+{
+
+    /**
+     * Every worker gets several chunks, so that a few expensive configurations don't leave the other workers idle.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static final AtomicInteger POOL_NUMBER = new AtomicInteger();
+
+    /**
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}, which exists only since JDK 21, while the library targets JDK 17.
+     */
+    @Nullable
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = ReflectionUtils.findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+
+    private ParallelExtraction()
+    {
+    }
+
+    /**
+     * For CPU-bound work, that is split into chunks between at most {@code parallelism} platform threads.
+     */
+    static <T, R> List<R> map(final List<T> items, final int parallelism, final Function<T, R> mapper)
+    {
+        int threads = Math.min(parallelism, items.size());
+        if (threads <= 1) {
+            return items.stream().map(mapper).toList();
+        }
+
+        int chunkSize = Math.max(1, items.size() / (threads * CHUNKS_PER_THREAD));
+        return map(items, chunkSize, Executors.newFixedThreadPool(threads, newThreadFactory()), mapper);
+    }
+
+    /**
+     * For blocking work (e.g. reading files), every item gets its own virtual thread when running on JDK 21+,
+     * otherwise they share a pool of at most {@code maxThreads} platform threads. The items are never chunked,
+     * so that a slow item doesn't hold back the ones queued behind it.
+     */
+    static <T, R> List<R> mapBlocking(final List<T> items, final int maxThreads, final Function<T, R> mapper)
+    {
+        if (items.size() <= 1) {
+            return items.stream().map(mapper).toList();
+        }
+
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null) {
+            return map(items, 1, (ExecutorService) ReflectionUtils.invokeMethod(NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR, null), mapper);
+        }
+
+        int threads = Math.max(1, Math.min(maxThreads, items.size()));
+        return map(items, 1, Executors.newFixedThreadPool(threads, newThreadFactory()), mapper);
+    }
+
+    private static <T, R> List<R> map(final List<T> items, final int chunkSize, final ExecutorService executor, final Function<T, R> mapper)
+    {
+        ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+
+        List<Callable<List<R>>> chunks = new ArrayList<>();
+        for (int from = 0; from < items.size(); from += chunkSize) {
+            List<T> chunk = items.subList(from, Math.min(from + chunkSize, items.size()));
+            chunks.add(() -> {
+                Thread.currentThread().setContextClassLoader(contextClassLoader);
+                return chunk.stream().map(mapper).toList();
+            });
+        }
+
+        try {
+            Object[] result = new Object[items.size()];
+            int index = 0;
+            for (Future<List<R>> chunk : executor.invokeAll(chunks)) {
+                for (R value : chunk.get()) {
+                    result[index++] = value;
+                }
+            }
+
+            @SuppressWarnings("unchecked")
+            List<R> values = (List<R>) Arrays.asList(result);
+            return Collections.unmodifiableList(values);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the parallel tasks", e);
+
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(String.format("Parallel task failed: %s", e.getCause().getMessage()), e.getCause());
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory newThreadFactory()
+    {
+        String prefix = "properties-order-by-configurations-" + POOL_NUMBER.incrementAndGet() + "-";
+        AtomicInteger threadNumber = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+}
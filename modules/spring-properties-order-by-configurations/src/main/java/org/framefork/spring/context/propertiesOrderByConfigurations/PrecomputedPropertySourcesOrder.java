@@ -0,0 +1,50 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.io.ResourceLoader;
+
+import java.util.List;
+
+/**
+ * Order of the property sources, that was computed ahead of time by {@link PropertySourcesOrderAotProcessor}.
+ *
+ * <p>The locations are kept unresolved, because the placeholders in them have to be resolved against the runtime environment.
+ *
+ * @param propertySources declarations of the property sources, grouped by the configuration classes, in the sorted order of the classes
+ */
+record PrecomputedPropertySourcesOrder(
+    List<List<PropertySourceDeclaration>> propertySources
+)
+{
+
+    static final String BEAN_NAME = "org.framefork.spring.context.propertiesOrderByConfigurations.precomputedPropertySourcesOrder";
+
+    /**
+     * Called from the generated code, during the initialization of the bean factory.
+     */
+    static void register(final ConfigurableListableBeanFactory beanFactory, final List<List<PropertySourceDeclaration>> propertySources)
+    {
+        beanFactory.registerSingleton(BEAN_NAME, new PrecomputedPropertySourcesOrder(propertySources));
+    }
+
+    @Nullable
+    static PrecomputedPropertySourcesOrder find(final ConfigurableListableBeanFactory beanFactory)
+    {
+        return beanFactory.containsSingleton(BEAN_NAME)
+            ? beanFactory.getBean(BEAN_NAME, PrecomputedPropertySourcesOrder.class)
+            : null;
+    }
+
+    List<PropertySourceResource> resolve(final PropertyResolver propertyResolver, final ResourceLoader resourceLoader)
+    {
+        var locationResolver = new PropertySourceLocationResolver(propertyResolver, resourceLoader);
+        return propertySources.stream()
+            .flatMap(declarations -> SpringConfigurationUtils.getPropertySourcesLocations(declarations, locationResolver).stream())
+            .toList();
+    }
+
+}
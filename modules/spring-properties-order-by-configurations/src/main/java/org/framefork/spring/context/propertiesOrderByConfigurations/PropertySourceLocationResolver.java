@@ -0,0 +1,61 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.springframework.core.env.PropertyResolver;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The same templated locations (e.g. {@code classpath:${app.region}/defaults.properties}) are typically declared on many configurations,
+ * so every unique location is resolved and described only once per analysis.
+ *
+ * <p>The resolver is safe to be used by the parallel extraction, the placeholders are resolved against the environment of a single context,
+ * so it must not be shared between the analyses of different contexts.
+ */
+final class PropertySourceLocationResolver
+{
+
+    private final PropertyResolver propertyResolver;
+    private final ResourceLoader resourceLoader;
+
+    private final Map<String, ResolvedLocation> resolvedLocations = new ConcurrentHashMap<>();
+
+    PropertySourceLocationResolver(final PropertyResolver propertyResolver, final ResourceLoader resourceLoader)
+    {
+        this.propertyResolver = propertyResolver;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * @param location as declared in the {@link org.springframework.context.annotation.PropertySource}, including the placeholders
+     */
+    ResolvedLocation resolve(final String location)
+    {
+        return resolvedLocations.computeIfAbsent(location, key -> {
+            Resource resource = resourceLoader.getResource(propertyResolver.resolveRequiredPlaceholders(key));
+            return new ResolvedLocation(resource, resource.getDescription());
+        });
+    }
+
+    /**
+     * Number of unique locations resolved so far.
+     */
+    int size()
+    {
+        return resolvedLocations.size();
+    }
+
+    /**
+     * @param description of the resource, which is also the default name of its property source
+     */
+    record ResolvedLocation(
+        Resource resource,
+        String description
+    )
+    {
+
+    }
+
+}
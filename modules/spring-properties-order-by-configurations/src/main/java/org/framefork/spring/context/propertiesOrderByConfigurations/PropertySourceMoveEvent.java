@@ -0,0 +1,43 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * A single move of a property source, every one of them copies the whole list of the {@link org.springframework.core.env.MutablePropertySources}.
+ * Only {@link FlightRecorderEvents} may refer to it.
+ */
+@Name(PropertySourceMoveEvent.NAME)
+@Label("Property Source Move")
+@Category({"Spring", "Properties Order by Configurations"})
+@Description("Moving a property source into the computed order")
+final class PropertySourceMoveEvent extends Event
+{
+
+    static final String NAME = "org.framefork.spring.PropertiesOrderPropertySourceMove";
+
+    @Label("Property Source")
+    @Description("Name of the moved property source")
+    @Nullable
+    String propertySource;
+
+    @Label("After")
+    @Description("Name of the property source it was placed after, empty when it was placed first")
+    @Nullable
+    String after;
+
+    static Runnable beginMove(final String propertySource, final String after)
+    {
+        var event = new PropertySourceMoveEvent();
+        event.propertySource = propertySource;
+        event.after = after;
+        event.begin();
+
+        return event::commit;
+    }
+
+}
@@ -0,0 +1,89 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces every run of consecutive resource property sources with a single {@link FlattenedPropertySource},
+ * which is only safe once nothing else is going to look them up by their names or change their content.
+ */
+final class PropertySourcesFlattening
+{
+
+    private static final Logger log = LoggerFactory.getLogger(PropertySourcesFlattening.class);
+
+    private PropertySourcesFlattening()
+    {
+    }
+
+    /**
+     * @return number of property sources, that were merged into flattened ones
+     */
+    static int flatten(final MutablePropertySources propertySources)
+    {
+        var currentOrder = SpringConfigurationUtils.getPropertySources(propertySources);
+
+        Set<PropertySource<?>> resourcePropertySources = Collections.newSetFromMap(new IdentityHashMap<>());
+        resourcePropertySources.addAll(SpringConfigurationUtils.getResourcePropertySources(currentOrder));
+
+        List<List<EnumerablePropertySource<?>>> runs = new ArrayList<>();
+        List<EnumerablePropertySource<?>> run = new ArrayList<>();
+        for (var propertySource : currentOrder) {
+            if (resourcePropertySources.contains(propertySource) && isImmutable(propertySource)) {
+                run.add((EnumerablePropertySource<?>) propertySource);
+                continue;
+            }
+            if (run.size() > 1) {
+                runs.add(run);
+            }
+            run = new ArrayList<>();
+        }
+        if (run.size() > 1) {
+            runs.add(run);
+        }
+
+        int flattened = 0;
+        for (var flattenedRun : runs) {
+            var flattenedPropertySource = FlattenedPropertySource.of(flattenedRun);
+            propertySources.replace(flattenedRun.get(0).getName(), flattenedPropertySource);
+            for (var propertySource : flattenedRun.subList(1, flattenedRun.size())) {
+                propertySources.remove(propertySource.getName());
+            }
+
+            log.debug("Flattened {} into \"{}\"", flattenedPropertySource.getFlattenedNames(), flattenedPropertySource.getName());
+            flattened += flattenedRun.size();
+        }
+
+        return flattened;
+    }
+
+    /**
+     * Spring never changes the content of a {@link ResourcePropertySource} once it's loaded,
+     * and Spring Boot marks the ones it loads from files as immutable.
+     * The {@link LazyResourcePropertySource}'s are merged only once they are read, the flattening must not read them.
+     */
+    private static boolean isImmutable(final PropertySource<?> propertySource)
+    {
+        if (propertySource instanceof OriginTrackedMapPropertySource originTrackedSource) {
+            return originTrackedSource.isImmutable();
+        }
+
+        if (propertySource instanceof LazyResourcePropertySource lazyPropertySource) {
+            return lazyPropertySource.isLoaded();
+        }
+
+        return propertySource instanceof ResourcePropertySource;
+    }
+
+}
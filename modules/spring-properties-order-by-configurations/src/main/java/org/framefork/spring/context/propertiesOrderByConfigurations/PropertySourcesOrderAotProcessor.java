@@ -0,0 +1,90 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.jspecify.annotations.Nullable;
+import org.springframework.aot.generate.GeneratedClass;
+import org.springframework.aot.generate.GeneratedMethod;
+import org.springframework.aot.generate.GenerationContext;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotContribution;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationAotProcessor;
+import org.springframework.beans.factory.aot.BeanFactoryInitializationCode;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.javapoet.CodeBlock;
+
+import javax.lang.model.element.Modifier;
+import java.util.List;
+
+/**
+ * Runs the analysis of the configuration classes during the AOT processing, and generates code that registers its result
+ * as {@link PrecomputedPropertySourcesOrder}, so that the post-processor only applies it when the application starts.
+ */
+class PropertySourcesOrderAotProcessor implements BeanFactoryInitializationAotProcessor
+{
+
+    @Nullable
+    @Override
+    public PropertySourcesOrderContribution processAheadOfTime(final ConfigurableListableBeanFactory beanFactory)
+    {
+        if (beanFactory.getBeanNamesForType(PropertySourcesOverridePrecedencePostProcessor.class, false, false).length == 0) {
+            return null; // the post-processor is not used in this context
+        }
+
+        var environment = beanFactory.getBean(ConfigurableApplicationContext.ENVIRONMENT_BEAN_NAME, ConfigurableEnvironment.class);
+        var resourceLoader = new DefaultResourceLoader(beanFactory.getBeanClassLoader());
+        var properties = PropertySourcesOverridePrecedenceProperties.bind(environment);
+
+        var configurations = new ConfigurationsAnalyzer(ConfigurationsAnalyzer.findConfigurations(
+            beanFactory,
+            ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory),
+            environment,
+            resourceLoader,
+            ConfigurationMetadataResolver.create(properties, resourceLoader),
+            1,
+            properties.isUseRegisteredImports()
+        ));
+
+        return new PropertySourcesOrderContribution(new PrecomputedPropertySourcesOrder(configurations.getPropertySourceDeclarationsOrder()));
+    }
+
+    record PropertySourcesOrderContribution(
+        PrecomputedPropertySourcesOrder order
+    ) implements BeanFactoryInitializationAotContribution
+    {
+
+        @Override
+        public void applyTo(final GenerationContext generationContext, final BeanFactoryInitializationCode beanFactoryInitializationCode)
+        {
+            // generated into this package, so that it can use the package-private types
+            GeneratedClass generatedClass = generationContext.getGeneratedClasses()
+                .addForFeatureComponent("PropertySourcesOrder", PropertySourcesOverridePrecedencePostProcessor.class, type -> type.addModifiers(Modifier.PUBLIC));
+
+            GeneratedMethod generatedMethod = generatedClass.getMethods().add("registerPropertySourcesOrder", method -> method
+                .addJavadoc("Register the precomputed order of the property sources.")
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .addParameter(DefaultListableBeanFactory.class, "beanFactory")
+                .addStatement("$T.register(beanFactory, $L)", PrecomputedPropertySourcesOrder.class, generatePropertySources()));
+
+            beanFactoryInitializationCode.addInitializer(generatedMethod.toMethodReference());
+        }
+
+        private CodeBlock generatePropertySources()
+        {
+            List<CodeBlock> groups = order.propertySources().stream()
+                .map(declarations -> CodeBlock.of("$T.of($L)", List.class, CodeBlock.join(
+                    declarations.stream()
+                        .map(declaration -> CodeBlock.of("new $T($S, $S)", PropertySourceDeclaration.class, declaration.name(), declaration.location()))
+                        .toList(),
+                    ", "
+                )))
+                .toList();
+
+            return CodeBlock.of("$T.of($L)", List.class, CodeBlock.join(groups, ",\n"));
+        }
+
+    }
+
+}
@@ -0,0 +1,471 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.ClassVisitor;
+import org.springframework.asm.SpringAsmInfo;
+import org.springframework.asm.Type;
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers the computed order of the property sources, as they are declared (with unresolved placeholders), keyed by a fingerprint of the configuration classes,
+ * so that another context (or a restart of the same application) with the same configuration classes skips the whole analysis,
+ * including the introspection of the classes and the resolution of their property sources.
+ *
+ * <p>The fingerprint is computed without introspecting anything - it covers the class names of the configuration beans,
+ * the raw bytes of their class files (and of the class files of their super types and annotations),
+ * which carry the declared imports and property sources, and the content of the build-time indexes on the classpath.
+ * Reading the class files is much cheaper than introspecting them, and any change of the code invalidates the cached order.
+ *
+ * <p>The cache is only an optimization - any problem with reading or writing it is logged and the order is computed as usual.
+ */
+final class PropertySourcesOrderCache
+{
+
+    private static final Logger log = LoggerFactory.getLogger(PropertySourcesOrderCache.class);
+
+    /**
+     * Has to be changed whenever the sorting, the fingerprint or the stored format changes, so that the orders of older versions are not reused.
+     */
+    private static final String FORMAT_VERSION = "5";
+
+    private static final char FIELD_SEPARATOR = '\t';
+
+    /**
+     * Ordered from the fastest, a hit in a slower store is copied into all the faster ones.
+     */
+    private final List<Store> stores;
+
+    PropertySourcesOrderCache(final List<Store> stores)
+    {
+        this.stores = List.copyOf(stores);
+    }
+
+    static PropertySourcesOrderCache create(final PropertySourcesOverridePrecedenceProperties properties)
+    {
+        List<Store> stores = new ArrayList<>();
+        if (properties.getAnalysisCache().isEnabled()) {
+            stores.add(MemoryStore.shared(properties.getAnalysisCache().getMaxSize()));
+        }
+        if (properties.getOrderCache().isEnabled()) {
+            stores.add(new DirectoryStore(properties.getOrderCache().getDirectory().toPath()));
+        }
+
+        return new PropertySourcesOrderCache(stores);
+    }
+
+    boolean isEnabled()
+    {
+        return !stores.isEmpty();
+    }
+
+    /**
+     * @return declarations of the property sources, grouped by the configuration classes, in the sorted order of the classes
+     */
+    @Nullable
+    List<List<PropertySourceDeclaration>> load(final String fingerprint)
+    {
+        for (int i = 0; i < stores.size(); i++) {
+            List<String> lines = stores.get(i).load(fingerprint);
+            if (lines == null) {
+                continue;
+            }
+
+            List<List<PropertySourceDeclaration>> propertySourcesOrder = decode(lines);
+            if (propertySourcesOrder == null) {
+                log.warn("Ignoring the cached order {} from {}, because it's malformed", fingerprint, stores.get(i));
+                continue;
+            }
+
+            log.debug("Reusing the order of property sources {} cached in {}", fingerprint, stores.get(i));
+            for (Store fasterStore : stores.subList(0, i)) {
+                fasterStore.store(fingerprint, lines);
+            }
+            return propertySourcesOrder;
+        }
+
+        return null;
+    }
+
+    /**
+     * Concurrently starting contexts may both compute the order, but they store the same one.
+     *
+     * @param propertySourcesOrder declarations of the property sources, grouped by the configuration classes, in the sorted order of the classes
+     */
+    void store(final String fingerprint, final List<List<PropertySourceDeclaration>> propertySourcesOrder)
+    {
+        List<String> lines = encode(propertySourcesOrder);
+        if (lines == null) {
+            log.debug("Not caching the order of property sources {}, because their names or locations contain line breaks or tabs", fingerprint);
+            return;
+        }
+
+        stores.forEach(store -> store.store(fingerprint, lines));
+    }
+
+    @Nullable
+    static String fingerprint(final Collection<String> configurationClassNames, @Nullable final ClassLoader classLoader, final boolean useRegisteredImports)
+    {
+        return fingerprint(configurationClassNames, List.of(), classLoader, useRegisteredImports);
+    }
+
+    /**
+     * Covers the class names of the configuration beans (including the ones, that are going to be pruned), the bytes of their class files,
+     * and the raw content of all the build-time indexes, which change whenever any indexed class changes its imports or property sources.
+     *
+     * @param inheritedClassNames of the configurations of the ancestor contexts, that are sorted after the ones of the context
+     * @param useRegisteredImports whether the imports were taken from the registry of Spring, the only setting that changes the computed order
+     * @return {@code null} when the class files or the indexes cannot be read
+     */
+    @Nullable
+    static String fingerprint(
+        final Collection<String> configurationClassNames,
+        final Collection<String> inheritedClassNames,
+        @Nullable final ClassLoader classLoader,
+        final boolean useRegisteredImports
+    )
+    {
+        MessageDigest digest = sha256();
+        update(digest, FORMAT_VERSION);
+        update(digest, "registered-imports", String.valueOf(useRegisteredImports));
+
+        ClassLoader resourceClassLoader = (classLoader != null) ? classLoader : ClassUtils.getDefaultClassLoader();
+        try {
+            // the order of the bean definitions doesn't affect the analysis, which sorts the configurations by their names
+            Set<String> hashedClassFiles = new HashSet<>();
+            for (String className : sorted(configurationClassNames)) {
+                update(digest, "class", className);
+                updateClassFiles(digest, resourceClassLoader, className, hashedClassFiles);
+            }
+            for (String className : sorted(inheritedClassNames)) {
+                update(digest, "inherited", className);
+                updateClassFiles(digest, resourceClassLoader, className, hashedClassFiles);
+            }
+
+            Enumeration<URL> indexes = (resourceClassLoader != null)
+                ? resourceClassLoader.getResources(ConfigurationsIndex.INDEX_LOCATION)
+                : ClassLoader.getSystemResources(ConfigurationsIndex.INDEX_LOCATION);
+            while (indexes.hasMoreElements()) {
+                try (InputStream index = indexes.nextElement().openStream()) {
+                    digest.update(index.readAllBytes());
+                }
+                update(digest, "index");
+            }
+
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Cannot read the classes for the fingerprint of the cached order: {}", e.getMessage());
+            return null;
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * The class file of a configuration carries its direct imports and property sources, but the configurations can also be imported by its super types,
+     * and the imports can be declared by a composed annotation, so the class files of the super types and of the annotations are followed too.
+     * Every class file is hashed only once, the JDK classes are skipped.
+     */
+    private static void updateClassFiles(
+        final MessageDigest digest,
+        @Nullable final ClassLoader classLoader,
+        final String className,
+        final Set<String> hashedClassFiles
+    ) throws IOException
+    {
+        Deque<String> pending = new ArrayDeque<>();
+        pending.add(className);
+        while (!pending.isEmpty()) {
+            String name = pending.removeFirst();
+            if (name.startsWith("java.") || !hashedClassFiles.add(name)) {
+                continue;
+            }
+
+            String resourceName = ClassUtils.convertClassNameToResourcePath(name) + ClassUtils.CLASS_FILE_SUFFIX;
+            InputStream classFile = (classLoader != null) ? classLoader.getResourceAsStream(resourceName) : ClassLoader.getSystemResourceAsStream(resourceName);
+            if (classFile == null) {
+                update(digest, "missing", name);
+                continue;
+            }
+
+            byte[] bytes;
+            try (classFile) {
+                bytes = classFile.readAllBytes();
+            }
+            update(digest, "class-file", name);
+            digest.update(bytes);
+
+            new ClassReader(bytes).accept(new ClassVisitor(SpringAsmInfo.ASM_VERSION)
+            {
+
+                @Override
+                public void visit(final int version, final int access, final String internalName, final String signature, final String superName, final String[] interfaces)
+                {
+                    if (superName != null) {
+                        pending.add(Type.getObjectType(superName).getClassName());
+                    }
+                    for (String superInterface : interfaces) {
+                        pending.add(Type.getObjectType(superInterface).getClassName());
+                    }
+                }
+
+                @Override
+                public AnnotationVisitor visitAnnotation(final String descriptor, final boolean visible)
+                {
+                    pending.add(Type.getType(descriptor).getClassName());
+                    return null;
+                }
+
+            }, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        }
+    }
+
+    /**
+     * Every property source is a line with its (possibly empty) name and its location, separated by a tab,
+     * the property sources of every configuration class are followed by an empty line.
+     */
+    @Nullable
+    static List<String> encode(final List<List<PropertySourceDeclaration>> propertySourcesOrder)
+    {
+        List<String> result = new ArrayList<>();
+        for (List<PropertySourceDeclaration> declarations : propertySourcesOrder) {
+            for (PropertySourceDeclaration declaration : declarations) {
+                String name = (declaration.name() != null) ? declaration.name() : "";
+                if (!isEncodable(name) || !isEncodable(declaration.location())) {
+                    return null;
+                }
+                result.add(name + FIELD_SEPARATOR + declaration.location());
+            }
+            result.add("");
+        }
+
+        return result;
+    }
+
+    @Nullable
+    static List<List<PropertySourceDeclaration>> decode(final List<String> lines)
+    {
+        List<List<PropertySourceDeclaration>> result = new ArrayList<>();
+        List<PropertySourceDeclaration> declarations = new ArrayList<>();
+        for (String line : lines) {
+            if (line.isEmpty()) {
+                if (declarations.isEmpty()) {
+                    return null;
+                }
+                result.add(List.copyOf(declarations));
+                declarations.clear();
+                continue;
+            }
+
+            int separator = line.indexOf(FIELD_SEPARATOR);
+            if (separator < 0 || separator == line.length() - 1) {
+                return null;
+            }
+            String name = line.substring(0, separator);
+            declarations.add(new PropertySourceDeclaration(name.isEmpty() ? null : name, line.substring(separator + 1)));
+        }
+
+        // the last group is always terminated, anything else is a truncated file
+        return declarations.isEmpty() ? List.copyOf(result) : null;
+    }
+
+    private static List<String> sorted(final Collection<String> values)
+    {
+        List<String> result = new ArrayList<>(values);
+        Collections.sort(result);
+        return result;
+    }
+
+    private static boolean isEncodable(final String value)
+    {
+        return value.indexOf(FIELD_SEPARATOR) < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0;
+    }
+
+    private static void update(final MessageDigest digest, final String... values)
+    {
+        for (String value : values) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        digest.update((byte) '\n');
+    }
+
+    private static MessageDigest sha256()
+    {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(String.format("Cannot create digest: %s", e.getMessage()), e);
+        }
+    }
+
+    /**
+     * The stores keep only the encoded declarations, so that nothing of the analyzed context is retained.
+     */
+    interface Store
+    {
+
+        @Nullable
+        List<String> load(String fingerprint);
+
+        void store(String fingerprint, List<String> lines);
+
+    }
+
+    /**
+     * Bounded LRU cache, the shared instance is used by all the contexts in the JVM, which typically helps test suites,
+     * that start many slightly different contexts.
+     */
+    static final class MemoryStore implements Store
+    {
+
+        private static final Map<String, List<String>> SHARED_ORDERS = new LinkedHashMap<>(16, 0.75f, true);
+
+        private final Map<String, List<String>> orders;
+        private final int maxSize;
+
+        MemoryStore(final int maxSize)
+        {
+            this(new LinkedHashMap<>(16, 0.75f, true), maxSize);
+        }
+
+        private MemoryStore(final Map<String, List<String>> orders, final int maxSize)
+        {
+            this.orders = orders;
+            this.maxSize = maxSize;
+        }
+
+        static MemoryStore shared(final int maxSize)
+        {
+            return new MemoryStore(SHARED_ORDERS, maxSize);
+        }
+
+        @Nullable
+        @Override
+        public List<String> load(final String fingerprint)
+        {
+            synchronized (orders) {
+                return orders.get(fingerprint);
+            }
+        }
+
+        @Override
+        public void store(final String fingerprint, final List<String> lines)
+        {
+            synchronized (orders) {
+                orders.put(fingerprint, List.copyOf(lines));
+
+                // evicts the least recently used orders
+                var iterator = orders.keySet().iterator();
+                while (orders.size() > maxSize && iterator.hasNext()) {
+                    iterator.next();
+                    iterator.remove();
+                }
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return "memory";
+        }
+
+    }
+
+    /**
+     * One file per fingerprint, that lists the encoded declarations.
+     */
+    static final class DirectoryStore implements Store
+    {
+
+        private static final String FILE_SUFFIX = ".order";
+
+        private final Path directory;
+
+        DirectoryStore(final Path directory)
+        {
+            this.directory = directory;
+        }
+
+        Path file(final String fingerprint)
+        {
+            return directory.resolve(fingerprint + FILE_SUFFIX);
+        }
+
+        @Nullable
+        @Override
+        public List<String> load(final String fingerprint)
+        {
+            Path file = file(fingerprint);
+            if (!Files.isRegularFile(file)) {
+                return null;
+            }
+
+            try {
+                return Files.readAllLines(file, StandardCharsets.UTF_8);
+
+            } catch (IOException e) {
+                log.warn("Cannot read the cached order from {}: {}", file, e.getMessage());
+                return null;
+            }
+        }
+
+        @Override
+        public void store(final String fingerprint, final List<String> lines)
+        {
+            Path file = file(fingerprint);
+            try {
+                Files.createDirectories(directory);
+
+                // concurrently starting instances must never see a partially written file
+                Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+                try {
+                    Files.write(tempFile, lines, StandardCharsets.UTF_8);
+                    Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+                } finally {
+                    Files.deleteIfExists(tempFile);
+                }
+
+                log.debug("Cached the order of property sources in {}", file);
+
+            } catch (IOException e) {
+                log.warn("Cannot cache the order in {}: {}", file, e.getMessage());
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return directory.toString();
+        }
+
+    }
+
+}
@@ -0,0 +1,27 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import java.time.Duration;
+
+/**
+ * Outcome of the last run of the post-processor, kept for the metrics, which can only be registered once the context is refreshed.
+ *
+ * @param analysisDuration time spent finding and sorting the configurations
+ * @param configurationBeans number of bean definitions of configuration classes
+ * @param configurations number of configuration classes, that declare or import property sources
+ * @param importEdges number of imports between those configuration classes
+ * @param moved number of property sources moved into the computed order
+ * @param skipped number of resources in the computed order, that were not loaded into the context
+ */
+record PropertySourcesOrderStatistics(
+    Duration analysisDuration,
+    int configurationBeans,
+    int configurations,
+    int importEdges,
+    int moved,
+    int skipped
+)
+{
+
+    static final PropertySourcesOrderStatistics NONE = new PropertySourcesOrderStatistics(Duration.ZERO, 0, 0, 0, 0, 0);
+
+}
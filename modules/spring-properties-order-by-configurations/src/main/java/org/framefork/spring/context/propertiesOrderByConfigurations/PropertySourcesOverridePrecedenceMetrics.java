@@ -0,0 +1,64 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Reports the cost and the outcome of the reordering, which happens before any {@link MeterRegistry} exists,
+ * so the values are the ones of the last run of the post-processor.
+ */
+public class PropertySourcesOverridePrecedenceMetrics implements MeterBinder
+{
+
+    static final String PREFIX = "framefork.properties.order";
+
+    /**
+     * The gauges reference it only weakly, the binder keeps it alive for as long as the context.
+     */
+    private final Supplier<PropertySourcesOrderStatistics> statistics;
+
+    PropertySourcesOverridePrecedenceMetrics(final Supplier<PropertySourcesOrderStatistics> statistics)
+    {
+        this.statistics = statistics;
+    }
+
+    @Override
+    public void bindTo(final MeterRegistry registry)
+    {
+        TimeGauge.builder(PREFIX + ".analysis.duration", statistics, TimeUnit.NANOSECONDS, current -> current.get().analysisDuration().toNanos())
+            .description("Time spent finding and sorting the configuration classes")
+            .register(registry);
+
+        registerCount(registry, PREFIX + ".configuration.beans", "Number of bean definitions of configuration classes", PropertySourcesOrderStatistics::configurationBeans);
+        registerCount(registry, PREFIX + ".configurations", "Number of configuration classes, that declare or import property sources", PropertySourcesOrderStatistics::configurations);
+        registerCount(registry, PREFIX + ".import.edges", "Number of imports between the configuration classes, that declare or import property sources", PropertySourcesOrderStatistics::importEdges);
+
+        Gauge.builder(PREFIX + ".property.sources", statistics, current -> current.get().moved())
+            .description("Number of property sources moved into the computed order")
+            .tag("outcome", "moved")
+            .register(registry);
+        Gauge.builder(PREFIX + ".property.sources", statistics, current -> current.get().skipped())
+            .description("Number of property sources of the computed order, that were not loaded into the context")
+            .tag("outcome", "skipped")
+            .register(registry);
+    }
+
+    private void registerCount(
+        final MeterRegistry registry,
+        final String name,
+        final String description,
+        final ToIntFunction<PropertySourcesOrderStatistics> count
+    )
+    {
+        Gauge.builder(name, statistics, current -> count.applyAsInt(current.get()))
+            .description(description)
+            .register(registry);
+    }
+
+}
@@ -0,0 +1,24 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * The {@link MeterBinder} is picked up by the Spring Boot Actuator, which binds it to all the {@link io.micrometer.core.instrument.MeterRegistry}'s.
+ */
+@AutoConfiguration(after = PropertySourcesOverridePrecedenceAutoConfiguration.class)
+@ConditionalOnClass(MeterBinder.class)
+public class PropertySourcesOverridePrecedenceMetricsAutoConfiguration
+{
+
+    @Bean
+    @ConditionalOnBean(PropertySourcesOverridePrecedencePostProcessor.class)
+    public PropertySourcesOverridePrecedenceMetrics propertySourcesOverridePrecedenceMetrics(final PropertySourcesOverridePrecedencePostProcessor postProcessor)
+    {
+        return new PropertySourcesOverridePrecedenceMetrics(postProcessor::getStatistics);
+    }
+
+}
@@ -1,8 +1,10 @@
 package org.framefork.spring.context.propertiesOrderByConfigurations;
 
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.ConfigurationDeclaration;
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.RegisteredImports;
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzer.ConfigurationClass;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
 import org.jspecify.annotations.Nullable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.context.EnvironmentAware;
@@ -13,8 +15,17 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.MutablePropertySources;
 import org.springframework.core.env.PropertySource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * Finds all registered {@link org.springframework.context.annotation.Configuration} classes,
@@ -24,14 +35,14 @@ import java.util.Objects;
 public class PropertySourcesOverridePrecedencePostProcessor implements BeanFactoryPostProcessor, PriorityOrdered, EnvironmentAware, ResourceLoaderAware
 {
 
-    private static final Logger log = LoggerFactory.getLogger(PropertySourcesOverridePrecedencePostProcessor.class);
-
     @Nullable
     private ConfigurableEnvironment environment;
 
     @Nullable
     private ResourceLoader resourceLoader;
 
+    private volatile PropertySourcesOrderStatistics statistics = PropertySourcesOrderStatistics.NONE;
+
     @Override
     public int getOrder()
     {
@@ -55,37 +66,216 @@ public class PropertySourcesOverridePrecedencePostProcessor implements BeanFacto
     {
         Objects.requireNonNull(environment, "environment must not be null");
 
+        ApplicationStartup applicationStartup = beanFactory.getApplicationStartup();
         MutablePropertySources propertySources = environment.getPropertySources();
 
         // the MutablePropertySources works based on PropertySource's names... :garbage-fire:
-        var allPropertySources = SpringConfigurationUtils.getPropertySources(propertySources);
-        var resourcePropertySources = SpringConfigurationUtils.getResourcePropertySources(allPropertySources);
+        List<PropertySource<?>> allPropertySources;
+        List<PropertySource<?>> resourcePropertySources;
+        StartupStep collectStep = applicationStartup.start(StartupSteps.COLLECT_PROPERTY_SOURCES);
+        try {
+            allPropertySources = SpringConfigurationUtils.getPropertySources(propertySources);
+            resourcePropertySources = SpringConfigurationUtils.getResourcePropertySources(allPropertySources);
+            collectStep.tag("propertySources", String.valueOf(allPropertySources.size()))
+                .tag("resources", String.valueOf(resourcePropertySources.size()));
+
+        } finally {
+            collectStep.end();
+        }
+
         if (resourcePropertySources.isEmpty()) {
+            statistics = PropertySourcesOrderStatistics.NONE;
             return; // no resources were loaded => ignore
         }
 
-        // construct dependency graph and figure out resource priorities
-        var configurations = new ConfigurationsAnalyzer(
-            beanFactory,
-            Objects.requireNonNull(environment, "environment must not be null"),
-            Objects.requireNonNull(resourceLoader, "resourceLoader must not be null")
-        );
+        Objects.requireNonNull(resourceLoader, "resourceLoader must not be null");
 
         // we will use the first resource as a cursor and will start adding other resources after it
-        String previousName = allPropertySources.get(Math.max(0, allPropertySources.indexOf(resourcePropertySources.get(0)) - 1)).getName();
-        for (var nextResource : configurations.getPropertySourcesOrder()) {
-            String nextResourceName = nextResource.name();
-
-            PropertySource<?> nextPropertySource = propertySources.get(nextResourceName);
-            if (nextPropertySource == null) {
-                log.debug("Skipping \"{}\", because it was not loaded into the current Context", nextResourceName);
-                continue;
+        String cursorName = allPropertySources.get(Math.max(0, allPropertySources.indexOf(resourcePropertySources.get(0)) - 1)).getName();
+        var properties = PropertySourcesOverridePrecedenceProperties.bind(environment);
+
+        long analysisStart = System.nanoTime();
+        var analysis = new ConfigurationsAnalysis();
+        var analysisEvent = FlightRecorderEvents.beginConfigurationsAnalysis();
+        var propertySourcesOrder = computePropertySourcesOrder(beanFactory, environment, resourceLoader, properties, applicationStartup, analysis);
+        analysis.propertySources = propertySourcesOrder.size();
+        analysisEvent.accept(analysis);
+        Duration analysisDuration = Duration.ofNanos(System.nanoTime() - analysisStart);
+
+        PropertySourcesReordering.Result reordering;
+        StartupStep reorderStep = applicationStartup.start(StartupSteps.REORDER_PROPERTY_SOURCES);
+        try {
+            reorderStep.tag("resources", String.valueOf(propertySourcesOrder.size()));
+            reordering = PropertySourcesReordering.reorder(propertySources, cursorName, propertySourcesOrder);
+            reorderStep.tag("moved", String.valueOf(reordering.moved()));
+
+        } finally {
+            reorderStep.end();
+        }
+
+        if (properties.getPreload().isEnabled()) {
+            LazyPropertySourcesPreloading.preload(propertySources, properties.getPreload().getMaxThreads());
+        }
+
+        if (properties.isFlattenPropertySources()) {
+            PropertySourcesFlattening.flatten(propertySources);
+        }
+
+        // registered once the property sources are final, so that it knows which of them were merged by the flattening
+        if (!beanFactory.containsSingleton(PropertySourcesPrecedence.BEAN_NAME)) {
+            var order = propertySourcesOrder.stream().map(PropertySourceResource::name).toList();
+            beanFactory.registerSingleton(PropertySourcesPrecedence.BEAN_NAME, new PropertySourcesPrecedence(propertySources, cursorName, order));
+        }
+
+        statistics = new PropertySourcesOrderStatistics(
+            analysisDuration,
+            analysis.beans,
+            analysis.configurations,
+            analysis.importEdges,
+            reordering.moved(),
+            reordering.skipped()
+        );
+    }
+
+    /**
+     * Outcome of the last {@link #postProcessBeanFactory(ConfigurableListableBeanFactory)}, for the metrics.
+     */
+    PropertySourcesOrderStatistics getStatistics()
+    {
+        return statistics;
+    }
+
+    private static List<PropertySourceResource> computePropertySourcesOrder(
+        final ConfigurableListableBeanFactory beanFactory,
+        final ConfigurableEnvironment environment,
+        final ResourceLoader resourceLoader,
+        final PropertySourcesOverridePrecedenceProperties properties,
+        final ApplicationStartup applicationStartup,
+        final ConfigurationsAnalysis analysis
+    )
+    {
+        // the order was computed during the AOT processing, no need to introspect anything
+        var precomputedOrder = PrecomputedPropertySourcesOrder.find(beanFactory);
+        if (precomputedOrder != null) {
+            analysis.precomputed = true;
+            return precomputedOrder.resolve(environment, resourceLoader);
+        }
+
+        // the configurations of the parent context were already introspected by its own post-processor
+        var parentConfigurations = ContextConfigurations.findInParent(beanFactory);
+
+        List<ConfigurationDeclaration> declared = new ArrayList<>();
+        PropertySourcesOrderCache cache;
+        String fingerprint;
+        List<ConfigurationClass> configurations;
+
+        // ended also when the analysis fails, so that the startup timeline doesn't keep it open
+        StartupStep discoverStep = applicationStartup.start(StartupSteps.DISCOVER_CONFIGURATIONS);
+        try {
+            var configurationBeanNames = ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory);
+            discoverStep.tag("beans", String.valueOf(configurationBeanNames.size()));
+
+            Set<String> configurationClassNames = new HashSet<>();
+            Set<String> unresolvedBeanNames = new LinkedHashSet<>();
+            for (String beanName : configurationBeanNames) {
+                String className = SpringConfigurationUtils.getBeanDefinitionClassName(beanFactory.getBeanDefinition(beanName));
+                configurationClassNames.add(className);
+                var parentDeclaration = parentConfigurations.declarations().get(className);
+                if (parentDeclaration != null) {
+                    declared.add(parentDeclaration);
+                } else {
+                    unresolvedBeanNames.add(beanName);
+                }
             }
+            analysis.beans = configurationBeanNames.size();
+
+            // the configurations of the ancestors, that the context doesn't have itself, are sorted after its own ones
+            List<ConfigurationDeclaration> inherited = new ArrayList<>();
+            parentConfigurations.declarations().forEach((className, declaration) -> {
+                if (!configurationClassNames.contains(className)) {
+                    inherited.add(declaration);
+                }
+            });
+            inherited.sort(Comparator.comparing(ConfigurationDeclaration::className));
+
+            // already resolved by Spring while parsing the configurations, so the annotations don't have to be parsed for them again
+            var registeredImports = properties.isUseRegisteredImports() ? RegisteredImports.find(beanFactory) : null;
+
+            // the fingerprint doesn't need any introspection, so a cached order skips the whole analysis
+            cache = PropertySourcesOrderCache.create(properties);
+            fingerprint = cache.isEnabled()
+                ? PropertySourcesOrderCache.fingerprint(
+                    configurationClassNames,
+                    inherited.stream().map(ConfigurationDeclaration::className).toList(),
+                    resourceLoader.getClassLoader(),
+                    registeredImports != null
+                )
+                : null;
+            var cachedOrder = (fingerprint != null) ? cache.load(fingerprint) : null;
+
+            if (cachedOrder != null) {
+                discoverStep.tag("cached", String.valueOf(true));
+                analysis.cached = true;
+
+                // nothing was introspected, the children resolve the configurations of this context themselves
+                ContextConfigurations.register(beanFactory, parentConfigurations);
+                return new PrecomputedPropertySourcesOrder(cachedOrder).resolve(environment, resourceLoader);
+            }
+
+            declared.addAll(ConfigurationsAnalyzer.findDeclarations(
+                beanFactory,
+                unresolvedBeanNames,
+                ConfigurationMetadataResolver.create(properties, resourceLoader),
+                properties.getMetadataParallelism(),
+                registeredImports
+            ));
+            declared.sort(Comparator.comparing(ConfigurationDeclaration::className));
+
+            // analyzed together with the configurations of the ancestors, as if the roots of the context imported all of them,
+            // so that a configuration shared with the parent keeps its position in the imports of the child
+            declared.addAll(inherited);
 
-            log.info("Moving \"{}\" after \"{}\"", nextResourceName, previousName);
-            propertySources.addAfter(previousName, nextPropertySource);
-            previousName = nextResourceName;
+            configurations = ConfigurationsAnalyzer.findConfigurations(
+                declared,
+                environment,
+                resourceLoader,
+                properties.getMetadataParallelism()
+            );
+            discoverStep.tag("configurations", String.valueOf(configurations.size()));
+
+        } finally {
+            discoverStep.end();
+        }
+
+        analysis.configurations = configurations.size();
+        analysis.importEdges = configurations.stream().mapToInt(configuration -> configuration.directImports().size()).sum();
+
+        Set<String> analyzedClassNames = new HashSet<>();
+        configurations.forEach(configuration -> analyzedClassNames.add(configuration.className()));
+        ContextConfigurations.register(beanFactory, ContextConfigurations.of(declared, analyzedClassNames));
+
+        // construct dependency graph and figure out resource priorities
+        var analyzer = new ConfigurationsAnalyzer(configurations, applicationStartup);
+        if (fingerprint != null) {
+            cache.store(fingerprint, analyzer.getPropertySourceDeclarationsOrder());
         }
+
+        return analyzer.getPropertySourcesOrder();
+    }
+
+    /**
+     * Outcome of the analysis, for the statistics and for the JFR event.
+     */
+    static final class ConfigurationsAnalysis
+    {
+
+        int beans;
+        int configurations;
+        int importEdges;
+        int propertySources;
+        boolean precomputed;
+        boolean cached;
+
     }
 
 }
@@ -0,0 +1,293 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.bind.PropertySourcesPlaceholdersResolver;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertySource;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The post-processor runs before any {@link org.springframework.boot.context.properties.ConfigurationProperties} beans exist,
+ * so these properties are bound directly from the {@link Environment}, and they are not registered as a bean.
+ */
+public class PropertySourcesOverridePrecedenceProperties
+{
+
+    static final String PREFIX = "framefork.properties-order-by-configurations";
+
+    /**
+     * How the configuration classes and their hierarchies are introspected.
+     */
+    private MetadataMode metadataMode = MetadataMode.REFLECTION;
+
+    /**
+     * Whether to use the index of configuration classes, that is generated at build time by the annotation processor.
+     * Configuration classes that are not in the index are always introspected.
+     */
+    private boolean useIndex = true;
+
+    /**
+     * Whether to take the imports from the registry, that Spring filled while parsing the configurations (including the classes selected by an {@link org.springframework.context.annotation.ImportSelector}),
+     * instead of parsing the {@link org.springframework.context.annotation.Import} annotations again.
+     * The selected configurations are then ordered after the class that imported them, instead of among the roots by their names.
+     * When the registry is not available or cannot be read (it's not a public API of Spring), the annotations are used and a warning is logged.
+     */
+    private boolean useRegisteredImports = true;
+
+    /**
+     * Number of threads, that extract the metadata of configuration classes and resolve their property sources.
+     * The default {@code 1} extracts them sequentially on the thread that starts the context.
+     */
+    private int metadataParallelism = 1;
+
+    /**
+     * Whether to merge every run of consecutive resource property sources, once they are reordered, into a single indexed property source.
+     * The merged property sources can no longer be looked up by their names.
+     */
+    private boolean flattenPropertySources = false;
+
+    private final Preload preload = new Preload();
+
+    private final AnalysisCache analysisCache = new AnalysisCache();
+
+    private final OrderCache orderCache = new OrderCache();
+
+    public MetadataMode getMetadataMode()
+    {
+        return metadataMode;
+    }
+
+    public void setMetadataMode(final MetadataMode metadataMode)
+    {
+        this.metadataMode = metadataMode;
+    }
+
+    public boolean isUseIndex()
+    {
+        return useIndex;
+    }
+
+    public void setUseIndex(final boolean useIndex)
+    {
+        this.useIndex = useIndex;
+    }
+
+    public boolean isUseRegisteredImports()
+    {
+        return useRegisteredImports;
+    }
+
+    public void setUseRegisteredImports(final boolean useRegisteredImports)
+    {
+        this.useRegisteredImports = useRegisteredImports;
+    }
+
+    public int getMetadataParallelism()
+    {
+        return metadataParallelism;
+    }
+
+    public void setMetadataParallelism(final int metadataParallelism)
+    {
+        this.metadataParallelism = metadataParallelism;
+    }
+
+    public boolean isFlattenPropertySources()
+    {
+        return flattenPropertySources;
+    }
+
+    public void setFlattenPropertySources(final boolean flattenPropertySources)
+    {
+        this.flattenPropertySources = flattenPropertySources;
+    }
+
+    public Preload getPreload()
+    {
+        return preload;
+    }
+
+    public AnalysisCache getAnalysisCache()
+    {
+        return analysisCache;
+    }
+
+    public OrderCache getOrderCache()
+    {
+        return orderCache;
+    }
+
+    /**
+     * Every property is bound on its own as a plain value, instead of binding this class as a JavaBean,
+     * so that the binding doesn't reflect on these classes, and it works in a native image without any hints.
+     *
+     * <p>The binder enumerates the property names of the property sources, which would read the resources of the lazy ones,
+     * so the {@link LazyResourcePropertySource}'s that were not read yet are left out, and they cannot configure this library.
+     */
+    static PropertySourcesOverridePrecedenceProperties bind(final ConfigurableEnvironment environment)
+    {
+        List<PropertySource<?>> propertySources = environment.getPropertySources().stream()
+            .filter(propertySource -> !(propertySource instanceof LazyResourcePropertySource lazyPropertySource) || lazyPropertySource.isLoaded())
+            .toList();
+        Binder binder = new Binder(ConfigurationPropertySources.from(propertySources), new PropertySourcesPlaceholdersResolver(propertySources));
+
+        var result = new PropertySourcesOverridePrecedenceProperties();
+        binder.bind(PREFIX + ".metadata-mode", String.class).map(MetadataMode::parse).ifBound(result::setMetadataMode);
+        binder.bind(PREFIX + ".use-index", Boolean.class).ifBound(result::setUseIndex);
+        binder.bind(PREFIX + ".use-registered-imports", Boolean.class).ifBound(result::setUseRegisteredImports);
+        binder.bind(PREFIX + ".metadata-parallelism", Integer.class).ifBound(result::setMetadataParallelism);
+        binder.bind(PREFIX + ".flatten-property-sources", Boolean.class).ifBound(result::setFlattenPropertySources);
+        binder.bind(PREFIX + ".preload.enabled", Boolean.class).ifBound(result.getPreload()::setEnabled);
+        binder.bind(PREFIX + ".preload.max-threads", Integer.class).ifBound(result.getPreload()::setMaxThreads);
+        binder.bind(PREFIX + ".analysis-cache.enabled", Boolean.class).ifBound(result.getAnalysisCache()::setEnabled);
+        binder.bind(PREFIX + ".analysis-cache.max-size", Integer.class).ifBound(result.getAnalysisCache()::setMaxSize);
+        binder.bind(PREFIX + ".order-cache.enabled", Boolean.class).ifBound(result.getOrderCache()::setEnabled);
+        binder.bind(PREFIX + ".order-cache.directory", String.class).map(File::new).ifBound(result.getOrderCache()::setDirectory);
+
+        return result;
+    }
+
+    public static class Preload
+    {
+
+        /**
+         * Whether to read the resources of the lazy property sources concurrently, right after they are reordered.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Maximum number of threads, that read the resources on JDK 17, newer JDKs use a virtual thread for every resource.
+         */
+        private int maxThreads = 8;
+
+        public boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled)
+        {
+            this.enabled = enabled;
+        }
+
+        public int getMaxThreads()
+        {
+            return maxThreads;
+        }
+
+        public void setMaxThreads(final int maxThreads)
+        {
+            this.maxThreads = maxThreads;
+        }
+
+    }
+
+    public static class AnalysisCache
+    {
+
+        /**
+         * Whether to share the computed orders between all the contexts in the JVM, that have the same configuration classes.
+         * It pays off only when a JVM starts many contexts, e.g. in test suites, so it's disabled by default.
+         */
+        private boolean enabled = false;
+
+        /**
+         * How many orders are kept in the JVM-wide cache, the least recently used are evicted.
+         */
+        private int maxSize = 32;
+
+        public boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled)
+        {
+            this.enabled = enabled;
+        }
+
+        public int getMaxSize()
+        {
+            return maxSize;
+        }
+
+        public void setMaxSize(final int maxSize)
+        {
+            this.maxSize = maxSize;
+        }
+
+    }
+
+    public static class OrderCache
+    {
+
+        /**
+         * Whether to store the computed order on disk and reuse it, when the application starts with the same configurations again.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Directory of the cached orders.
+         */
+        private File directory = new File(System.getProperty("java.io.tmpdir"), "spring-properties-order-by-configurations");
+
+        public boolean isEnabled()
+        {
+            return enabled;
+        }
+
+        public void setEnabled(final boolean enabled)
+        {
+            this.enabled = enabled;
+        }
+
+        public File getDirectory()
+        {
+            return directory;
+        }
+
+        public void setDirectory(final File directory)
+        {
+            this.directory = directory;
+        }
+
+    }
+
+    public enum MetadataMode
+    {
+
+        /**
+         * Loads the configuration classes and walks their reflective class hierarchy.
+         */
+        REFLECTION,
+
+        /**
+         * Reads the class files with Spring's {@link org.springframework.core.type.classreading.MetadataReaderFactory},
+         * without loading any classes.
+         */
+        ASM,
+
+        ;
+
+        /**
+         * Case-insensitive, without the reflective lookup of the constants, that the conversion of the {@link Binder} would do.
+         */
+        static MetadataMode parse(final String value)
+        {
+            for (MetadataMode mode : values()) {
+                if (mode.name().equalsIgnoreCase(value.trim())) {
+                    return mode;
+                }
+            }
+
+            throw new IllegalStateException(String.format("Unknown %s.metadata-mode '%s', expected one of %s", PREFIX, value, Arrays.toString(values())));
+        }
+
+    }
+
+}
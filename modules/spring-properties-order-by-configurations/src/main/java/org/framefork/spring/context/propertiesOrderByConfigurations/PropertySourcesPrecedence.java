@@ -0,0 +1,214 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * The computed order of the property sources, that the post-processor keeps after the reordering,
+ * so that a property source added later (e.g. an optional resource, that didn't exist when the context was refreshed)
+ * can be placed at its position without analyzing the configurations again.
+ *
+ * <p>Only the names of the property sources are kept. The neighbour of a property source is looked up
+ * among the ones, that are currently placed, in {@code O(log n)}, and the other property sources are not moved.
+ * The ranks are spaced out, so that a property source added to the computed order with an anchor takes a free rank
+ * between the anchor and its successor, also in {@code O(log n)}. Only when the ranks after an anchor run out
+ * (after about {@value #RANK_GAP_BITS} property sources placed after the same anchor) are all of them spaced out again.
+ * Adding to the {@link MutablePropertySources} itself copies its list of property sources every time.
+ *
+ * <p>The property sources, that were merged by the flattening, are placed as their {@link FlattenedPropertySource},
+ * so a property source can be placed before or after the merged ones, but not between them.
+ */
+public final class PropertySourcesPrecedence
+{
+
+    public static final String BEAN_NAME = "org.framefork.spring.context.propertiesOrderByConfigurations.propertySourcesPrecedence";
+
+    private static final Logger log = LoggerFactory.getLogger(PropertySourcesPrecedence.class);
+
+    /**
+     * Number of the low bits of a rank, that are free for the property sources placed after the anchor with that rank.
+     */
+    static final int RANK_GAP_BITS = 20;
+
+    private static final long RANK_GAP = 1L << RANK_GAP_BITS;
+
+    private final MutablePropertySources propertySources;
+    private final String cursorName;
+
+    /**
+     * Rank by the name of the property source, the lower the rank, the higher the precedence.
+     * The ranks are not consecutive, so that the property sources placed later with an anchor fit between them.
+     */
+    private final Map<String, Long> ranks = new HashMap<>();
+
+    /**
+     * Names of all the property sources in the computed order (including the ones placed later with an anchor), by their ranks.
+     */
+    private final TreeMap<Long, String> ranked = new TreeMap<>();
+
+    /**
+     * Names of the property sources, that were placed into the property sources, by the ranks of the ranked property sources they contain.
+     */
+    private final TreeMap<Long, String> placed = new TreeMap<>();
+
+    PropertySourcesPrecedence(final MutablePropertySources propertySources, final String cursorName, final List<String> order)
+    {
+        this.propertySources = propertySources;
+        this.cursorName = cursorName;
+
+        // a property source that is listed multiple times ends up at the position of its last occurrence
+        Set<String> uniqueNames = new LinkedHashSet<>();
+        for (int i = order.size() - 1; i >= 0; i--) {
+            uniqueNames.add(order.get(i));
+        }
+        List<String> names = new ArrayList<>(uniqueNames);
+        Collections.reverse(names);
+        for (int i = 0; i < names.size(); i++) {
+            rank(names.get(i), i * RANK_GAP);
+        }
+
+        for (var propertySource : propertySources) {
+            List<String> flattenedNames = (propertySource instanceof FlattenedPropertySource flattenedPropertySource)
+                ? flattenedPropertySource.getFlattenedNames()
+                : List.of(propertySource.getName());
+            for (String name : flattenedNames) {
+                Long rank = ranks.get(name);
+                if (rank != null) {
+                    placed.put(rank, propertySource.getName());
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the property source, or moves it, when a property source of the same name is already present,
+     * to the position given by the computed order.
+     *
+     * @return {@code false} when the property source is not part of the computed order, in which case it's not added
+     */
+    public synchronized boolean place(final PropertySource<?> propertySource)
+    {
+        Long rank = ranks.get(propertySource.getName());
+        if (rank == null) {
+            return false;
+        }
+
+        placeAt(propertySource, rank);
+        return true;
+    }
+
+    /**
+     * Same as {@link #place(PropertySource)}, but a property source, that is not part of the computed order yet,
+     * is added to it right after the anchor, so it's overridden by the anchor, and it overrides everything the anchor overrides.
+     *
+     * @param anchorName name of a property source in the computed order, typically one declared by the same configuration
+     * @throws IllegalStateException when the anchor is not part of the computed order
+     */
+    public synchronized void place(final PropertySource<?> propertySource, final String anchorName)
+    {
+        String name = propertySource.getName();
+        if (!ranks.containsKey(name)) {
+            if (!ranks.containsKey(anchorName)) {
+                throw new IllegalStateException(String.format("Cannot place \"%s\" after \"%s\", which is not part of the computed order", name, anchorName));
+            }
+
+            long rank = rankAfter(ranks.get(anchorName));
+            if (rank == ranks.get(anchorName)) {
+                spaceOut();
+                rank = rankAfter(ranks.get(anchorName));
+            }
+            rank(name, rank);
+        }
+
+        placeAt(propertySource, ranks.get(name));
+    }
+
+    /**
+     * @return the rank halfway between the anchor and its successor, which equals the rank of the anchor when there is no free rank left
+     */
+    private long rankAfter(final long anchorRank)
+    {
+        Long nextRank = ranked.higherKey(anchorRank);
+        return (nextRank != null) ? anchorRank + (nextRank - anchorRank) / 2 : anchorRank + RANK_GAP;
+    }
+
+    /**
+     * Spaces out all the ranks again, keeping their order.
+     */
+    private void spaceOut()
+    {
+        Map<Long, Long> newRanks = new HashMap<>();
+        List<String> names = new ArrayList<>(ranked.values());
+        ranked.clear();
+        for (int i = 0; i < names.size(); i++) {
+            long newRank = i * RANK_GAP;
+            newRanks.put(ranks.get(names.get(i)), newRank);
+            rank(names.get(i), newRank);
+        }
+
+        Map<Long, String> oldPlaced = new HashMap<>(placed);
+        placed.clear();
+        oldPlaced.forEach((rank, placedName) -> placed.put(newRanks.get(rank), placedName));
+    }
+
+    private void placeAt(final PropertySource<?> propertySource, final long rank)
+    {
+        String name = propertySource.getName();
+
+        propertySources.remove(name);
+        placed.remove(rank, name);
+
+        String previousName = findPlaced(placed.lowerEntry(rank), true);
+        String nextName = findPlaced(placed.higherEntry(rank), false);
+        if (previousName != null && previousName.equals(nextName)) {
+            throw new IllegalStateException(String.format("Cannot place \"%s\" between the property sources merged into \"%s\"", name, previousName));
+        }
+
+        if (previousName != null) {
+            propertySources.addAfter(previousName, propertySource);
+        } else if (nextName != null) {
+            propertySources.addBefore(nextName, propertySource);
+        } else if (propertySources.contains(cursorName)) {
+            propertySources.addAfter(cursorName, propertySource);
+        } else {
+            propertySources.addLast(propertySource);
+        }
+
+        placed.put(rank, name);
+        log.debug("Placed \"{}\" at rank {} of the computed order", name, rank);
+    }
+
+    private void rank(final String name, final long rank)
+    {
+        ranks.put(name, rank);
+        ranked.put(rank, name);
+    }
+
+    /**
+     * Forgets the placed property sources, that were removed since, on the way.
+     */
+    @Nullable
+    private String findPlaced(final Map.@Nullable Entry<Long, String> start, final boolean lower)
+    {
+        Map.Entry<Long, String> entry = start;
+        while (entry != null && !propertySources.contains(entry.getValue())) {
+            placed.remove(entry.getKey());
+            entry = lower ? placed.lowerEntry(entry.getKey()) : placed.higherEntry(entry.getKey());
+        }
+
+        return (entry != null) ? entry.getValue() : null;
+    }
+
+}
@@ -0,0 +1,221 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Every mutation of {@link MutablePropertySources} looks up the property sources by name and copies its backing list,
+ * so the final order is computed up-front and then applied with the least possible number of moves.
+ */
+final class PropertySourcesReordering
+{
+
+    private static final Logger log = LoggerFactory.getLogger(PropertySourcesReordering.class);
+
+    private PropertySourcesReordering()
+    {
+    }
+
+    /**
+     * Places the resources, in the given order, right after the cursor.
+     */
+    static Result reorder(
+        final MutablePropertySources propertySources,
+        final String cursorName,
+        final List<PropertySourceResource> propertySourcesOrder
+    )
+    {
+        var currentOrder = SpringConfigurationUtils.getPropertySources(propertySources);
+        var targetOrder = computeOrder(currentOrder, cursorName, propertySourcesOrder);
+        int skipped = countSkipped(currentOrder, propertySourcesOrder);
+
+        // typical for restarts and cached test contexts, there is no reason to touch the property sources at all
+        if (targetOrder.equals(currentOrder)) {
+            log.debug("All {} property sources are already in the computed order", currentOrder.size());
+            return new Result(0, skipped);
+        }
+
+        int moved = applyOrder(propertySources, currentOrder, targetOrder);
+        log.info("Moved {} of {} property sources into the computed order", moved, currentOrder.size());
+        return new Result(moved, skipped);
+    }
+
+    /**
+     * Resources of the computed order, that were not loaded into the current context (e.g. optional ones that don't exist).
+     */
+    private static int countSkipped(final List<PropertySource<?>> currentOrder, final List<PropertySourceResource> propertySourcesOrder)
+    {
+        Set<String> names = new HashSet<>();
+        currentOrder.forEach(propertySource -> names.add(propertySource.getName()));
+
+        int result = 0;
+        for (var resource : propertySourcesOrder) {
+            if (!names.contains(resource.name())) {
+                result++;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The same order that moving the resources one by one after the cursor
+     * (each one after the previously moved one) would produce.
+     */
+    static List<PropertySource<?>> computeOrder(
+        final List<PropertySource<?>> currentOrder,
+        final String cursorName,
+        final List<PropertySourceResource> propertySourcesOrder
+    )
+    {
+        Map<String, PropertySource<?>> propertySourcesByName = new HashMap<>();
+        currentOrder.forEach(propertySource -> propertySourcesByName.put(propertySource.getName(), propertySource));
+
+        // a resource that is listed multiple times ends up at the position of its last occurrence
+        Map<String, PropertySource<?>> movedPropertySources = new LinkedHashMap<>();
+        for (var nextResource : propertySourcesOrder) {
+            String nextResourceName = nextResource.name();
+
+            PropertySource<?> nextPropertySource = propertySourcesByName.get(nextResourceName);
+            if (nextPropertySource == null) {
+                log.debug("Skipping \"{}\", because it was not loaded into the current Context", nextResourceName);
+                continue;
+            }
+
+            movedPropertySources.remove(nextResourceName);
+            movedPropertySources.put(nextResourceName, nextPropertySource);
+        }
+
+        if (movedPropertySources.isEmpty()) {
+            return currentOrder;
+        }
+
+        List<PropertySource<?>> result = new ArrayList<>(currentOrder.size());
+        boolean cursorFound = false;
+        for (var propertySource : currentOrder) {
+            if (!movedPropertySources.containsKey(propertySource.getName())) {
+                result.add(propertySource);
+            }
+            if (propertySource.getName().equals(cursorName)) {
+                result.addAll(movedPropertySources.values());
+                cursorFound = true;
+            }
+        }
+
+        if (!cursorFound) {
+            throw new IllegalStateException(String.format("PropertySource named '%s' does not exist", cursorName));
+        }
+
+        return result;
+    }
+
+    /**
+     * Property sources that form the longest subsequence, which is already in the target order, stay where they are,
+     * all the others are moved right after their predecessor in the target order.
+     *
+     * @return number of moved property sources
+     */
+    static int applyOrder(
+        final MutablePropertySources propertySources,
+        final List<PropertySource<?>> currentOrder,
+        final List<PropertySource<?>> targetOrder
+    )
+    {
+        Map<String, Integer> currentIndexes = new HashMap<>();
+        for (int i = 0; i < currentOrder.size(); i++) {
+            currentIndexes.put(currentOrder.get(i).getName(), i);
+        }
+
+        int[] targetToCurrentIndexes = new int[targetOrder.size()];
+        for (int i = 0; i < targetOrder.size(); i++) {
+            targetToCurrentIndexes[i] = currentIndexes.get(targetOrder.get(i).getName());
+        }
+
+        boolean[] inPlace = longestIncreasingSubsequence(targetToCurrentIndexes);
+
+        int moved = 0;
+        for (int i = 0; i < targetOrder.size(); i++) {
+            if (inPlace[i]) {
+                continue;
+            }
+
+            PropertySource<?> propertySource = targetOrder.get(i);
+            if (i == 0) {
+                log.debug("Moving \"{}\" to the first position", propertySource.getName());
+                var moveEvent = FlightRecorderEvents.beginPropertySourceMove(propertySource.getName(), "");
+                propertySources.addFirst(propertySource);
+                moveEvent.run();
+
+            } else {
+                String previousName = targetOrder.get(i - 1).getName();
+                log.debug("Moving \"{}\" after \"{}\"", propertySource.getName(), previousName);
+                var moveEvent = FlightRecorderEvents.beginPropertySourceMove(propertySource.getName(), previousName);
+                propertySources.addAfter(previousName, propertySource);
+                moveEvent.run();
+            }
+            moved++;
+        }
+
+        return moved;
+    }
+
+    /**
+     * O(n log n) patience sorting, the values are expected to be distinct.
+     *
+     * @return flags marking the members of one of the longest strictly increasing subsequences
+     */
+    private static boolean[] longestIncreasingSubsequence(final int[] values)
+    {
+        // tails[k] is the index of the smallest value, that ends an increasing subsequence of length k + 1
+        int[] tails = new int[values.length];
+        int[] predecessors = new int[values.length];
+        int length = 0;
+
+        for (int i = 0; i < values.length; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (values[tails[middle]] < values[i]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+
+            predecessors[i] = (low > 0) ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] result = new boolean[values.length];
+        for (int i = (length > 0) ? tails[length - 1] : -1; i >= 0; i = predecessors[i]) {
+            result[i] = true;
+        }
+
+        return result;
+    }
+
+    /**
+     * @param moved number of moved property sources
+     * @param skipped number of resources in the computed order, that are not loaded into the context
+     */
+    record Result(int moved, int skipped)
+    {
+
+    }
+
+}
@@ -0,0 +1,22 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.jspecify.annotations.Nullable;
+import org.springframework.beans.factory.config.BeanDefinition;
+
+/**
+ * Loads the configuration classes and walks their reflective class hierarchy.
+ */
+final class ReflectionConfigurationMetadataResolver implements ConfigurationMetadataResolver
+{
+
+    @Override
+    public ConfigurationDeclaration resolve(final BeanDefinition beanDefinition, @Nullable final RegisteredImports registeredImports)
+    {
+        return ConfigurationDeclaration.of(
+            SpringConfigurationUtils.getBeanDefinitionMetadata(beanDefinition),
+            SpringConfigurationUtils.getAllBeanTypeNames(beanDefinition),
+            registeredImports
+        );
+    }
+
+}
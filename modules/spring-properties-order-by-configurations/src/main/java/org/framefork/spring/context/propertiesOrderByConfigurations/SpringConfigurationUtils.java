@@ -1,28 +1,36 @@
 package org.framefork.spring.context.propertiesOrderByConfigurations;
 
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.boot.env.OriginTrackedMapPropertySource;
 import org.springframework.boot.origin.OriginProvider;
 import org.springframework.boot.origin.TextResourceOrigin;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.PropertySources;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.env.MutablePropertySources;
-import org.springframework.core.env.PropertyResolver;
 import org.springframework.core.env.PropertySource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.io.support.ResourcePropertySource;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
@@ -30,18 +38,84 @@ import java.util.Set;
 final class SpringConfigurationUtils
 {
 
+    private static final Logger log = LoggerFactory.getLogger(SpringConfigurationUtils.class);
+
+    /**
+     * The hierarchies are computed once per class and the immutable results are shared by all callers,
+     * which includes every application context started in the same JVM.
+     * The values are bound to the lifecycle of the class, so they don't prevent unloading of its ClassLoader.
+     */
+    private static final ClassValue<Set<Class<?>>> ALL_SUPER_TYPES = new ClassValue<>()
+    {
+        @Override
+        protected Set<Class<?>> computeValue(final Class<?> type)
+        {
+            Set<Class<?>> types = new LinkedHashSet<>();
+
+            Class<?> superclass = type.getSuperclass();
+            if (superclass != null && superclass != Object.class) {
+                types.add(type);
+                types.addAll(getAllSuperTypes(superclass));
+            }
+
+            for (Class<?> anInterface : type.getInterfaces()) {
+                types.add(anInterface);
+                types.addAll(getAllSuperTypes(anInterface));
+            }
+
+            return Collections.unmodifiableSet(types);
+        }
+    };
+
+    private static final ClassValue<Set<Class<?>>> ALL_BEAN_TYPES = new ClassValue<>()
+    {
+        @Override
+        protected Set<Class<?>> computeValue(final Class<?> beanClass)
+        {
+            Set<Class<?>> beanTypes = new LinkedHashSet<>();
+            beanTypes.add(beanClass);
+            beanTypes.addAll(getAllSuperTypes(beanClass));
+
+            return Collections.unmodifiableSet(beanTypes);
+        }
+    };
+
+    private static final ClassValue<Set<String>> ALL_BEAN_TYPE_NAMES = new ClassValue<>()
+    {
+        @Override
+        protected Set<String> computeValue(final Class<?> beanClass)
+        {
+            Set<String> beanTypeNames = new LinkedHashSet<>();
+            for (Class<?> beanType : ALL_BEAN_TYPES.get(beanClass)) {
+                beanTypeNames.add(beanType.getName());
+            }
+
+            return Collections.unmodifiableSet(beanTypeNames);
+        }
+    };
+
+    /**
+     * Same as the private constant in {@link ConfigurationClassPostProcessor}.
+     */
+    private static final String IMPORT_REGISTRY_BEAN_NAME = ConfigurationClassPostProcessor.class.getName() + ".importRegistry";
+
     private SpringConfigurationUtils()
     {
     }
 
+    /**
+     * Resolves the class through the thread context ClassLoader, which is the one the application classes are loaded with
+     * (e.g. by the launcher of an executable jar), instead of the ClassLoader of this library.
+     * A class, that is found but cannot be linked (e.g. its super class is missing), is reported the same way as a missing one.
+     */
     @SuppressWarnings({"unchecked"})
     static <T> Class<T> classForName(final String className)
     {
         try {
-            return (Class<T>) Class.forName(className);
+            return (Class<T>) ClassUtils.forName(className, ClassUtils.getDefaultClassLoader());
 
-        } catch (ClassNotFoundException e) {
-            throw new IllegalStateException(String.format("Cannot locale class '%s' on classpath: %s", className, e.getMessage()), e);
+        } catch (ClassNotFoundException | LinkageError e) {
+            throw new IllegalStateException(String.format("Cannot locate class '%s' on classpath: %s", className, e.getMessage()), e);
         }
     }
 
@@ -56,7 +130,7 @@ final class SpringConfigurationUtils
     {
         return propertySources.stream()
             .filter(source -> {
-                if (source instanceof ResourcePropertySource) {
+                if (source instanceof ResourcePropertySource || source instanceof LazyResourcePropertySource) {
                     return true;
                 }
 
@@ -107,76 +181,134 @@ final class SpringConfigurationUtils
         return unproxy(classForName(Objects.requireNonNull(beanDefinition.getBeanClassName(), "beanDefinition.getBeanClassName() must not be null")));
     }
 
+    static String getBeanDefinitionClassName(final BeanDefinition beanDefinition)
+    {
+        if (beanDefinition instanceof AnnotatedBeanDefinition annotatedBeanDefinition) {
+            return annotatedBeanDefinition.getMetadata().getClassName();
+        }
+
+        return unproxyClassName(Objects.requireNonNull(beanDefinition.getBeanClassName(), "beanDefinition.getBeanClassName() must not be null"));
+    }
+
     static Class<?> unproxy(final Class<?> type)
     {
         // TODO
         return type;
     }
 
-    static Set<Class<?>> getAllBeanTypes(final BeanDefinition beanDefinition)
+    static String unproxyClassName(final String className)
     {
-        Class<?> beanClass = getBeanDefinitionClass(beanDefinition);
+        int separatorIndex = className.indexOf(ClassUtils.CGLIB_CLASS_SEPARATOR);
+        return (separatorIndex > 0) ? className.substring(0, separatorIndex) : className;
+    }
 
-        Set<Class<?>> beanTypes = new LinkedHashSet<>();
-        beanTypes.add(beanClass);
-        beanTypes.addAll(getAllSuperTypes(beanClass));
+    static Set<Class<?>> getAllBeanTypes(final BeanDefinition beanDefinition)
+    {
+        return ALL_BEAN_TYPES.get(getBeanDefinitionClass(beanDefinition));
+    }
 
-        return beanTypes;
+    static Set<String> getAllBeanTypeNames(final BeanDefinition beanDefinition)
+    {
+        return ALL_BEAN_TYPE_NAMES.get(getBeanDefinitionClass(beanDefinition));
     }
 
     static Set<Class<?>> getAllSuperTypes(final Class<?> type)
     {
-        Set<Class<?>> types = new LinkedHashSet<>();
-
-        Class<?> superclass = type.getSuperclass();
-        if (superclass != null && superclass != Object.class) {
-            types.add(type);
-            types.addAll(getAllSuperTypes(superclass));
-        }
-
-        for (Class<?> anInterface : type.getInterfaces()) {
-            types.add(anInterface);
-            types.addAll(getAllSuperTypes(anInterface));
-        }
-
-        return types;
+        return ALL_SUPER_TYPES.get(type);
     }
 
-    static Set<Class<?>> getDirectImports(final AnnotationMetadata annotations)
+    static Set<String> getDirectImports(final AnnotationMetadata annotations)
     {
         return Optional.of(annotations)
-            .map(metadata -> metadata.getAnnotationAttributes(Import.class.getName()))
-            .map(attributes -> (Class<?>[]) attributes.get("value"))
+            .map(metadata -> metadata.getAnnotationAttributes(Import.class.getName(), true)) // class names, so that the imports don't have to be loaded
+            .map(attributes -> (String[]) attributes.get("value"))
             .map(classNames -> {
-                Set<Class<?>> result = new LinkedHashSet<>();
+                Set<String> result = new LinkedHashSet<>();
                 Collections.addAll(result, classNames);
                 return Collections.unmodifiableSet(result); // we want it immutable, but want to preserve ordering
             })
             .orElseGet(Set::of);
     }
 
-    static Set<PropertySourceResource> getPropertySourcesLocations(
-        final AnnotationMetadata beanDefinitionMetadata,
-        final PropertyResolver propertyResolver,
-        final ResourceLoader resourceLoader
-    )
+    /**
+     * Reads the imports, that the {@link ConfigurationClassPostProcessor} registered while parsing the configurations,
+     * including the classes selected by the {@link org.springframework.context.annotation.ImportSelector}'s and the ones inherited from the super classes.
+     * The registry is not part of Spring's public API, so it's accessed reflectively,
+     * and when it cannot be read, the imports are taken from the {@link Import} annotations instead.
+     *
+     * @return imported class names by the importing class names, in the order in which Spring first imported them,
+     * or {@code null} when the registry is not available, e.g. when the bean definitions were produced by the AOT generated code
+     */
+    @Nullable
+    static Map<String, Set<String>> getRegisteredImports(final ConfigurableListableBeanFactory beanFactory)
     {
-        List<PropertySourceResource> resources = new ArrayList<>();
+        if (!beanFactory.containsSingleton(IMPORT_REGISTRY_BEAN_NAME)) {
+            log.debug("The import registry '{}' is not available, the imports are taken from the annotations", IMPORT_REGISTRY_BEAN_NAME);
+            return null;
+        }
+
+        Object importRegistry = beanFactory.getSingleton(IMPORT_REGISTRY_BEAN_NAME);
+        Field importsField = (importRegistry != null) ? ReflectionUtils.findField(importRegistry.getClass(), "imports") : null;
+        if (importsField == null) {
+            log.warn("The import registry '{}' has no imports field in this version of Spring, falling back to the imports from the annotations", IMPORT_REGISTRY_BEAN_NAME);
+            return null;
+        }
+
+        try {
+            ReflectionUtils.makeAccessible(importsField);
+            if (!(ReflectionUtils.getField(importsField, importRegistry) instanceof Map<?, ?> importers)) {
+                log.warn("The imports of the import registry '{}' are not a map in this version of Spring, falling back to the imports from the annotations", IMPORT_REGISTRY_BEAN_NAME);
+                return null;
+            }
+
+            // the registry maps every imported class to all the classes that imported it, in the order of registration
+            Map<String, Set<String>> result = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> entry : importers.entrySet()) {
+                for (Object importingClass : (Iterable<?>) entry.getValue()) {
+                    result.computeIfAbsent(((AnnotationMetadata) importingClass).getClassName(), key -> new LinkedHashSet<>())
+                        .add((String) entry.getKey());
+                }
+            }
+
+            return result;
+
+        } catch (RuntimeException e) {
+            // e.g. the InaccessibleObjectException, when the Spring modules are not open to this library
+            log.warn("Cannot read the import registry '{}', falling back to the imports from the annotations: {}", IMPORT_REGISTRY_BEAN_NAME, e.toString());
+            return null;
+        }
+    }
+
+    static List<PropertySourceDeclaration> getPropertySourceDeclarations(final AnnotationMetadata beanDefinitionMetadata)
+    {
+        List<PropertySourceDeclaration> result = new ArrayList<>();
         for (AnnotationAttributes propertySource : attributesForRepeatable(beanDefinitionMetadata, PropertySources.class, org.springframework.context.annotation.PropertySource.class)) {
-            Optional<String> name = Optional.ofNullable(propertySource.getString("name")).filter(StringUtils::hasLength);
+            String name = Optional.ofNullable(propertySource.getString("name")).filter(StringUtils::hasLength).orElse(null);
 
             for (String location : propertySource.getStringArray("value")) {
-                String resolvedLocation = propertyResolver.resolveRequiredPlaceholders(location);
-                Resource resource = resourceLoader.getResource(resolvedLocation);
-
-                resources.add(new PropertySourceResource(
-                    resource,
-                    name.orElseGet(resource::getDescription),
-                    location
-                ));
+                result.add(new PropertySourceDeclaration(name, location));
             }
         }
 
+        return Collections.unmodifiableList(result);
+    }
+
+    static Set<PropertySourceResource> getPropertySourcesLocations(
+        final List<PropertySourceDeclaration> propertySourceDeclarations,
+        final PropertySourceLocationResolver locationResolver
+    )
+    {
+        List<PropertySourceResource> resources = new ArrayList<>();
+        for (PropertySourceDeclaration propertySource : propertySourceDeclarations) {
+            var resolvedLocation = locationResolver.resolve(propertySource.location());
+
+            resources.add(new PropertySourceResource(
+                resolvedLocation.resource(),
+                Optional.ofNullable(propertySource.name()).orElse(resolvedLocation.description()),
+                propertySource.location()
+            ));
+        }
+
         Collections.reverse(resources); // this is important to preserve Spring's precedence
 
         return Collections.unmodifiableSet(new LinkedHashSet<>(resources));
@@ -187,6 +319,17 @@ final class SpringConfigurationUtils
         return metadata.getMergedRepeatableAnnotationAttributes(annotationClass, containerClass, false, false);
     }
 
+    /**
+     * A single location of a {@link org.springframework.context.annotation.PropertySource}, as declared on the configuration class.
+     */
+    record PropertySourceDeclaration(
+        @Nullable String name,
+        String location
+    )
+    {
+
+    }
+
     record PropertySourceResource(
         Resource resource,
         String name,
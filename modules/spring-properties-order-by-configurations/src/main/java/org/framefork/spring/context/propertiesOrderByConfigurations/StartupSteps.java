@@ -0,0 +1,22 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+/**
+ * Names of the {@link org.springframework.core.metrics.StartupStep}'s, that the post-processor records
+ * into the {@link org.springframework.core.metrics.ApplicationStartup} of the context.
+ */
+final class StartupSteps
+{
+
+    private static final String PREFIX = PropertySourcesOverridePrecedenceProperties.PREFIX + ".";
+
+    static final String COLLECT_PROPERTY_SOURCES = PREFIX + "property-sources.collect";
+    static final String DISCOVER_CONFIGURATIONS = PREFIX + "configurations.discover";
+    static final String BUILD_IMPORT_GRAPH = PREFIX + "configurations.graph-build";
+    static final String SORT_CONFIGURATIONS = PREFIX + "configurations.sort";
+    static final String REORDER_PROPERTY_SOURCES = PREFIX + "property-sources.reorder";
+
+    private StartupSteps()
+    {
+    }
+
+}
@@ -0,0 +1,271 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOrderCache.MemoryStore;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Nothing of the analysis may stay reachable after the post-processor returns,
+ * the context retains only the declarations of its configuration classes, that affect the order (names of the classes, their imports and the property sources), for its children.
+ *
+ * <p>Every analyzed configuration with property sources references the resources of their locations,
+ * so the resources, that the analysis resolved, become unreachable only when none of the analyzed configurations is retained.
+ */
+class ConfigurationsAnalyzerReachabilityTest
+{
+
+    private static final int CONFIGURATIONS = 1_000;
+    private static final int PROPERTY_SOURCES_EVERY = 10;
+
+    private static final String PACKAGE = "org/framefork/footprint/generated/";
+
+    @Test
+    public void resolvedResourcesAreNotRetained() throws Exception
+    {
+        var classLoader = new GeneratedClassLoader(ConfigurationsAnalyzerReachabilityTest.class.getClassLoader(), generateClasses());
+        var beanFactory = postProcess(classLoader, Map.of());
+
+        // the only state, that is kept on purpose
+        var configurations = (ContextConfigurations) beanFactory.getSingleton(ContextConfigurations.BEAN_NAME);
+        assertThat(configurations).isNotNull();
+        assertThat(configurations.declarations())
+            .as("only the configurations, that import the last one with property sources, are kept")
+            .hasSize(CONFIGURATIONS - PROPERTY_SOURCES_EVERY + 1);
+    }
+
+    @Test
+    public void resolvedResourcesAreNotRetainedByCache() throws Exception
+    {
+        var classLoader = new GeneratedClassLoader(ConfigurationsAnalyzerReachabilityTest.class.getClassLoader(), generateClasses());
+        postProcess(classLoader, Map.of(PropertySourcesOverridePrecedenceProperties.PREFIX + ".analysis-cache.enabled", "true"));
+
+        // the cache keeps only the encoded declarations, a line per property source and an empty line after every configuration
+        List<String> classNames = new ArrayList<>();
+        for (int i = 0; i < CONFIGURATIONS; i++) {
+            classNames.add(className(i).replace('/', '.'));
+        }
+        String fingerprint = PropertySourcesOrderCache.fingerprint(classNames, classLoader, false);
+        assertThat(fingerprint).isNotNull();
+        assertThat(MemoryStore.shared(1).load(fingerprint))
+            .hasSize(2 * CONFIGURATIONS / PROPERTY_SOURCES_EVERY);
+    }
+
+    /**
+     * @return the post-processed bean factory, to which the retained state belongs
+     */
+    private static DefaultListableBeanFactory postProcess(final ClassLoader classLoader, final Map<String, Object> properties) throws Exception
+    {
+        var resourceLoader = new RecordingResourceLoader(classLoader);
+
+        var beanFactory = createBeanFactory(classLoader);
+        var environment = createEnvironment(new DefaultResourceLoader(classLoader));
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+
+        var postProcessor = new PropertySourcesOverridePrecedencePostProcessor();
+        postProcessor.setEnvironment(environment);
+        postProcessor.setResourceLoader(resourceLoader);
+        postProcessor.postProcessBeanFactory(beanFactory);
+
+        assertThat(resourceLoader.resources)
+            .as("resources resolved by the analysis")
+            .hasSize(CONFIGURATIONS / PROPERTY_SOURCES_EVERY);
+
+        assertThat(awaitCleared(resourceLoader.resources))
+            .as("resources still reachable after the post-processing of %d configurations", CONFIGURATIONS)
+            .isZero();
+
+        Reference.reachabilityFence(environment);
+        Reference.reachabilityFence(postProcessor);
+
+        return beanFactory;
+    }
+
+    /**
+     * {@link System#gc()} is only a hint, so it's repeated until the references are cleared, or until it's clear that they won't be.
+     *
+     * @return number of references, that were not cleared
+     */
+    private static long awaitCleared(final List<WeakReference<Resource>> references) throws InterruptedException
+    {
+        long reachable = references.size();
+        for (int i = 0; i < 50 && reachable > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+            reachable = references.stream().filter(reference -> reference.get() != null).count();
+        }
+
+        return reachable;
+    }
+
+    private static DefaultListableBeanFactory createBeanFactory(final ClassLoader classLoader) throws ClassNotFoundException
+    {
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setBeanClassLoader(classLoader);
+
+        for (int i = 0; i < CONFIGURATIONS; i++) {
+            var beanDefinition = new AnnotatedGenericBeanDefinition(classLoader.loadClass(className(i).replace('/', '.')));
+            beanFactory.registerBeanDefinition("configuration" + i, beanDefinition);
+        }
+
+        // the ConfigurationClassPostProcessor reads the same annotations while parsing the configurations,
+        // so in a real context the metadata caches are already populated when the analysis starts
+        for (String beanName : beanFactory.getBeanDefinitionNames()) {
+            var metadata = ((AnnotatedBeanDefinition) beanFactory.getBeanDefinition(beanName)).getMetadata();
+            metadata.isAnnotated(Configuration.class.getName());
+            SpringConfigurationUtils.getDirectImports(metadata);
+            SpringConfigurationUtils.getPropertySourceDeclarations(metadata);
+        }
+
+        return beanFactory;
+    }
+
+    private static StandardEnvironment createEnvironment(final ResourceLoader resourceLoader)
+    {
+        var environment = new StandardEnvironment();
+
+        for (int i = 0; i < CONFIGURATIONS; i += PROPERTY_SOURCES_EVERY) {
+            String name = resourceLoader.getResource(location(i)).getDescription();
+            environment.getPropertySources().addLast(new OriginTrackedMapPropertySource(name, Map.of("footprint.property", name)));
+        }
+
+        return environment;
+    }
+
+    /**
+     * Every configuration imports the next two, so that none of them is pruned.
+     */
+    private static Map<String, byte[]> generateClasses()
+    {
+        Map<String, byte[]> result = new HashMap<>();
+        for (int i = 0; i < CONFIGURATIONS; i++) {
+            var writer = new ClassWriter(0);
+            writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, className(i), null, "java/lang/Object", null);
+            writer.visitAnnotation(Type.getDescriptor(Configuration.class), true).visitEnd();
+
+            List<String> imports = new ArrayList<>();
+            for (int imported = i + 1; imported <= i + 2 && imported < CONFIGURATIONS; imported++) {
+                imports.add(className(imported));
+            }
+            if (!imports.isEmpty()) {
+                AnnotationVisitor importAnnotation = writer.visitAnnotation(Type.getDescriptor(Import.class), true);
+                AnnotationVisitor importValues = importAnnotation.visitArray("value");
+                imports.forEach(imported -> importValues.visit(null, Type.getObjectType(imported)));
+                importValues.visitEnd();
+                importAnnotation.visitEnd();
+            }
+
+            if (i % PROPERTY_SOURCES_EVERY == 0) {
+                AnnotationVisitor propertySource = writer.visitAnnotation(Type.getDescriptor(PropertySource.class), true);
+                AnnotationVisitor locations = propertySource.visitArray("value");
+                locations.visit(null, location(i));
+                locations.visitEnd();
+                propertySource.visit("ignoreResourceNotFound", Boolean.TRUE);
+                propertySource.visitEnd();
+            }
+
+            writer.visitEnd();
+            result.put(className(i).replace('/', '.'), writer.toByteArray());
+        }
+
+        return result;
+    }
+
+    private static String className(final int index)
+    {
+        return PACKAGE + "Configuration" + index;
+    }
+
+    private static String location(final int index)
+    {
+        return "classpath:footprint/config" + index + ".properties";
+    }
+
+    /**
+     * Weakly references every resource, that the post-processor resolves.
+     */
+    private static final class RecordingResourceLoader extends DefaultResourceLoader
+    {
+
+        private final List<WeakReference<Resource>> resources = new CopyOnWriteArrayList<>();
+
+        RecordingResourceLoader(final ClassLoader classLoader)
+        {
+            super(classLoader);
+        }
+
+        @Override
+        public Resource getResource(final String location)
+        {
+            Resource resource = super.getResource(location);
+            resources.add(new WeakReference<>(resource));
+            return resource;
+        }
+
+    }
+
+    private static final class GeneratedClassLoader extends ClassLoader
+    {
+
+        private final Map<String, byte[]> classes;
+
+        GeneratedClassLoader(final ClassLoader parent, final Map<String, byte[]> classes)
+        {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException
+        {
+            byte[] bytecode = classes.get(name);
+            if (bytecode == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+
+        /**
+         * The class files are read by the fingerprint of the cache.
+         */
+        @Nullable
+        @Override
+        public InputStream getResourceAsStream(final String name)
+        {
+            byte[] bytecode = name.endsWith(ClassUtils.CLASS_FILE_SUFFIX)
+                ? classes.get(ClassUtils.convertResourcePathToClassName(name.substring(0, name.length() - ClassUtils.CLASS_FILE_SUFFIX.length())))
+                : null;
+            return (bytecode != null) ? new ByteArrayInputStream(bytecode) : super.getResourceAsStream(name);
+        }
+
+    }
+
+}
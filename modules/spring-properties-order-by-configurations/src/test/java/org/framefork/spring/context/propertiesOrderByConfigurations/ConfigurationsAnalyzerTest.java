@@ -1,17 +1,36 @@
 package org.framefork.spring.context.propertiesOrderByConfigurations;
 
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.RegisteredImports;
 import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.ImportSelector;
 import org.springframework.context.annotation.PropertySource;
 import org.springframework.context.annotation.PropertySources;
+import org.springframework.context.annotation.ScannedGenericBeanDefinition;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+
+import java.io.IOException;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -40,10 +59,10 @@ class ConfigurationsAnalyzerTest
 
         var sortedConfigurations = analyzer.getSortedConfigurationClasses()
             .stream()
-            .filter(config -> config.getBeanClass().getName().startsWith(ConfigurationsAnalyzerTest.class.getPackageName() + "."))
+            .filter(config -> config.className().startsWith(ConfigurationsAnalyzerTest.class.getPackageName() + "."))
             .toList();
         assertThat(sortedConfigurations)
-            .map(config -> config.getBeanClass().getName())
+            .map(config -> config.className())
             .containsExactly(
                 "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App",
                 "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App$AppConfiguration5",
@@ -51,9 +70,8 @@ class ConfigurationsAnalyzerTest
                 "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App$AppConfiguration7",
                 "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App$AppConfiguration4",
                 "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App$CoreConfiguration1",
-                "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App$CoreConfiguration3",
-                "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App$CoreConfiguration2",
-                "org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOverridePrecedenceAutoConfiguration"
+                "org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzerTest$App$CoreConfiguration3"
+                // CoreConfiguration2 and the auto-configuration are pruned, because they don't lead to any property sources
             );
 
         var orderedPropertySources = analyzer.getPropertySourcesOrder();
@@ -71,6 +89,142 @@ class ConfigurationsAnalyzerTest
             );
     }
 
+    @Test
+    public void selectorImports()
+    {
+        var registeredImports = RegisteredImports.find(beanFactory);
+        assertThat(registeredImports).isNotNull();
+
+        // the declared imports come first, the auto-configuration selector of @SpringBootApplication is deferred
+        assertThat(registeredImports.get(App.class.getName()))
+            .startsWith(App.AppConfiguration5.class.getName(), App.AppConfiguration6.class.getName(), App.AppConfiguration7.class.getName())
+            .contains(PropertySourcesOverridePrecedenceAutoConfiguration.class.getName());
+        assertThat(registeredImports.get(App.CoreConfiguration1.class.getName()))
+            .containsExactly(App.CoreConfiguration3.class.getName(), App.CoreConfiguration2.class.getName());
+        assertThat(registeredImports.get(App.CoreConfiguration2.class.getName()))
+            .isEmpty();
+    }
+
+    @Test
+    public void registeredImportsReplaceAnnotations()
+    {
+        var beanNames = ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory);
+        var registeredImports = new RegisteredImports(Map.of(App.AppConfiguration7.class.getName(), Set.of(App.CoreConfiguration3.class.getName())));
+
+        var declarations = ConfigurationsAnalyzer.findDeclarations(beanFactory, beanNames, new ReflectionConfigurationMetadataResolver(), 1, registeredImports);
+        assertThat(declarations)
+            .filteredOn(declaration -> declaration.className().equals(App.AppConfiguration7.class.getName()))
+            .singleElement()
+            .satisfies(declaration -> assertThat(declaration.directImports()).containsExactly(App.CoreConfiguration3.class.getName()));
+
+        // the annotations are not read at all, even for the classes with declared imports
+        assertThat(declarations)
+            .filteredOn(declaration -> declaration.className().equals(App.AppConfiguration5.class.getName()))
+            .singleElement()
+            .satisfies(declaration -> assertThat(declaration.directImports()).isEmpty());
+    }
+
+    @Test
+    public void registeredImports()
+    {
+        // without the registered imports, the selected configuration is a root, that sorts before the application by its name
+        assertThat(runSelectorApp(false))
+            .containsSubsequence("imported-by-selector", "selector-app");
+
+        assertThat(runSelectorApp(true))
+            .containsSubsequence("selector-app", "imported-by-selector");
+    }
+
+    @Test
+    public void inheritedConfiguration() throws IOException
+    {
+        var metadataReaderFactory = new SimpleMetadataReaderFactory();
+        var beanFactory = new DefaultListableBeanFactory();
+        for (Class<?> type : List.of(InheritingConfiguration.class, PlainComponent.class)) {
+            beanFactory.registerBeanDefinition(type.getSimpleName(), new ScannedGenericBeanDefinition(metadataReaderFactory.getMetadataReader(type.getName())));
+        }
+
+        // the metadata read from the class file doesn't see the annotations inherited from the super class
+        var metadata = ((AnnotatedBeanDefinition) beanFactory.getBeanDefinition(InheritingConfiguration.class.getSimpleName())).getMetadata();
+        assertThat(metadata.isAnnotated(Configuration.class.getName())).isFalse();
+
+        assertThat(ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory))
+            .containsExactly(InheritingConfiguration.class.getSimpleName());
+    }
+
+    @Test
+    public void parallelMetadataExtraction()
+    {
+        var beanNames = ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory);
+        var sequential = ConfigurationsAnalyzer.findConfigurations(beanFactory, beanNames, environment, resourceLoader, new ReflectionConfigurationMetadataResolver(), 1);
+        var parallel = ConfigurationsAnalyzer.findConfigurations(beanFactory, beanNames, environment, resourceLoader, new ReflectionConfigurationMetadataResolver(), 4);
+
+        assertThat(parallel)
+            .isNotEmpty()
+            .containsExactlyElementsOf(sequential);
+    }
+
+    @Test
+    public void sortingWithAsmMetadata()
+    {
+        var reflectionAnalyzer = new ConfigurationsAnalyzer(beanFactory, environment, resourceLoader, new ReflectionConfigurationMetadataResolver());
+        var asmAnalyzer = new ConfigurationsAnalyzer(beanFactory, environment, resourceLoader, new MetadataReaderConfigurationMetadataResolver(resourceLoader));
+
+        assertThat(asmAnalyzer.getSortedConfigurationClasses())
+            .map(ConfigurationsAnalyzer.ConfigurationClass::className)
+            .containsExactlyElementsOf(
+                reflectionAnalyzer.getSortedConfigurationClasses().stream()
+                    .map(ConfigurationsAnalyzer.ConfigurationClass::className)
+                    .toList()
+            );
+        assertThat(asmAnalyzer.getPropertySourcesOrder())
+            .containsExactlyElementsOf(reflectionAnalyzer.getPropertySourcesOrder());
+    }
+
+    private static List<String> runSelectorApp(final boolean useRegisteredImports)
+    {
+        var application = new SpringApplicationBuilder(SelectorApp.class)
+            .web(WebApplicationType.NONE)
+            .properties(PropertySourcesOverridePrecedenceProperties.PREFIX + ".use-registered-imports=" + useRegisteredImports);
+
+        try (var context = application.run()) {
+            return context.getEnvironment().getPropertySources().stream().map(propertySource -> propertySource.getName()).toList();
+        }
+    }
+
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.TYPE)
+    @Inherited
+    @Configuration
+    @interface InheritedConfiguration
+    {
+
+    }
+
+    /**
+     * Inner classes, so that the component scan of the {@link App} skips them.
+     */
+    @InheritedConfiguration
+    class BaseConfiguration
+    {
+
+    }
+
+    class InheritingConfiguration extends BaseConfiguration
+    {
+
+    }
+
+    class PlainComponent implements Runnable
+    {
+
+        @Override
+        public void run()
+        {
+        }
+
+    }
+
     @SpringBootApplication
     @Import({
         App.AppConfiguration5.class,
@@ -142,4 +296,30 @@ class ConfigurationsAnalyzerTest
 
     }
 
+    @Configuration
+    @Import({PropertySourcesOverridePrecedenceAutoConfiguration.class, SelectorApp.Selector.class})
+    @PropertySource(name = "selector-app", value = "classpath:application.properties")
+    static class SelectorApp
+    {
+
+        static class Selector implements ImportSelector
+        {
+
+            @Override
+            public String[] selectImports(final AnnotationMetadata importingClassMetadata)
+            {
+                return new String[]{ImportedBySelector.class.getName()};
+            }
+
+        }
+
+    }
+
+    @Configuration
+    @PropertySource(name = "imported-by-selector", value = "classpath:application.properties")
+    static class ImportedBySelector
+    {
+
+    }
+
 }
@@ -0,0 +1,224 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzer.ConfigurationClass;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Verifies that the single-pass scan and ordering produce exactly the same results as the original implementation.
+ */
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    classes = {
+        ConfigurationsAnalyzerTest.App.class,
+    }
+)
+class ConfigurationsImportsOrderCompatibilityTest
+{
+
+    @Autowired
+    ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    ConfigurableEnvironment environment;
+
+    @Autowired
+    ResourceLoader resourceLoader;
+
+    @Test
+    public void applicationConfigurations()
+    {
+        var configurations = ConfigurationsAnalyzer.findConfigurations(
+            beanFactory,
+            ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory),
+            environment,
+            resourceLoader,
+            new ReflectionConfigurationMetadataResolver()
+        );
+
+        var sorted = ConfigurationsAnalyzer.getConfigurationsSortedByImports(configurations, ConfigurationsAnalyzer.buildImportGraph(configurations));
+        var legacySorted = legacySortByImports(legacyDependencyGraph(configurations)).stream()
+            .map(configurations::get)
+            .toList();
+
+        assertThat(sorted)
+            .isNotEmpty()
+            .containsExactlyElementsOf(legacySorted);
+    }
+
+    @Test
+    public void configurationBeanNames()
+    {
+        Set<String> legacyBeanNames = new HashSet<>();
+        legacyBeanNames.addAll(List.of(beanFactory.getBeanNamesForAnnotation(Configuration.class)));
+        legacyBeanNames.addAll(List.of(beanFactory.getBeanNamesForAnnotation(AutoConfiguration.class)));
+
+        assertThat(ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory))
+            .isNotEmpty()
+            .containsExactlyInAnyOrderElementsOf(legacyBeanNames);
+    }
+
+    @Test
+    public void randomGraphs()
+    {
+        var random = new Random(42);
+        for (int graph = 0; graph < 1000; graph++) {
+            int size = 1 + random.nextInt(60);
+            var imports = randomGraph(random, size, random.nextDouble() * 4 / size);
+
+            var importGraph = ImportGraph.builder(size);
+            for (int node = 0; node < size; node++) {
+                for (int imported : imports.get(node)) {
+                    importGraph.addImport(node, imported);
+                }
+            }
+
+            assertThat(importGraph.build().sortedByImports())
+                .as("graph %d with %d nodes: %s", graph, size, imports)
+                .containsExactly(legacySortByImports(imports).stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    @Test
+    public void prunedGraphs()
+    {
+        var random = new Random(42);
+        for (int graph = 0; graph < 1000; graph++) {
+            int size = 1 + random.nextInt(60);
+            var imports = randomGraph(random, size, random.nextDouble() * 4 / size);
+
+            boolean[] withPropertySources = new boolean[size];
+            for (int node = 0; node < size; node++) {
+                withPropertySources[node] = random.nextDouble() < 0.2;
+            }
+
+            var importGraph = ImportGraph.builder(size);
+            for (int node = 0; node < size; node++) {
+                for (int imported : imports.get(node)) {
+                    importGraph.addImport(node, imported);
+                }
+            }
+            var fullGraph = importGraph.build();
+            boolean[] relevant = fullGraph.reaching(withPropertySources);
+
+            // the subgraph of the relevant nodes, with the original indexes mapped to the new ones
+            List<Integer> relevantNodes = IntStream.range(0, size).filter(node -> relevant[node]).boxed().toList();
+            var prunedGraph = ImportGraph.builder(relevantNodes.size());
+            for (int node = 0; node < relevantNodes.size(); node++) {
+                for (int imported : imports.get(relevantNodes.get(node))) {
+                    if (relevant[imported]) {
+                        prunedGraph.addImport(node, relevantNodes.indexOf(imported));
+                    }
+                }
+            }
+
+            assertThat(IntStream.of(prunedGraph.build().sortedByImports()).map(relevantNodes::get).toArray())
+                .as("graph %d with %d nodes: %s", graph, size, imports)
+                .containsExactly(IntStream.of(fullGraph.sortedByImports()).filter(node -> relevant[node]).toArray());
+        }
+    }
+
+    /**
+     * Random graph, that may contain diamonds, cycles and even self-imports.
+     */
+    private static List<List<Integer>> randomGraph(final Random random, final int size, final double density)
+    {
+        List<List<Integer>> result = new ArrayList<>();
+        for (int node = 0; node < size; node++) {
+            List<Integer> imports = new ArrayList<>();
+            for (int imported = 0; imported < size; imported++) {
+                if (random.nextDouble() < density) {
+                    imports.add(imported);
+                }
+            }
+            Collections.shuffle(imports, random);
+            result.add(imports);
+        }
+
+        return result;
+    }
+
+    /**
+     * The original graph construction - the types and the imports introspected from the classes themselves,
+     * imports resolved through the types, ambiguous types are ignored.
+     */
+    private static List<List<Integer>> legacyDependencyGraph(final List<ConfigurationClass> configurations)
+    {
+        List<Class<?>> classes = configurations.stream()
+            .<Class<?>>map(configuration -> SpringConfigurationUtils.classForName(configuration.className()))
+            .toList();
+
+        Map<String, Integer> types = new HashMap<>();
+        Set<String> duplicates = new HashSet<>();
+        for (int node = 0; node < classes.size(); node++) {
+            for (String beanType : SpringConfigurationUtils.getAllBeanTypeNames(new RootBeanDefinition(classes.get(node)))) {
+                if (types.put(beanType, node) != null) {
+                    duplicates.add(beanType);
+                }
+            }
+        }
+        duplicates.forEach(types::remove);
+
+        return classes.stream()
+            .map(type -> SpringConfigurationUtils.getDirectImports(AnnotationMetadata.introspect(type)).stream()
+                .map(types::get)
+                .filter(imported -> imported != null)
+                .toList())
+            .toList();
+    }
+
+    /**
+     * The original implementation - a separate BFS from every root, collected into a {@link LinkedHashSet}.
+     */
+    private static List<Integer> legacySortByImports(final List<List<Integer>> imports)
+    {
+        Set<Integer> roots = new LinkedHashSet<>();
+        IntStream.range(0, imports.size()).forEach(roots::add);
+        imports.forEach(roots::removeAll);
+
+        Set<Integer> result = new LinkedHashSet<>();
+        for (int root : roots) {
+            Set<Integer> visited = new HashSet<>();
+            Deque<Integer> queue = new ArrayDeque<>();
+
+            visited.add(root);
+            queue.add(root);
+            result.add(root);
+
+            while (!queue.isEmpty()) {
+                for (int child : imports.get(queue.removeFirst())) {
+                    if (visited.add(child)) {
+                        queue.add(child);
+                        result.add(child);
+                    }
+                }
+            }
+        }
+
+        return List.copyOf(result);
+    }
+
+}
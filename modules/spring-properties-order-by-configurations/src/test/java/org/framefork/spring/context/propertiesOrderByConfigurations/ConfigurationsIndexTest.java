@@ -0,0 +1,50 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationMetadataResolver.ConfigurationDeclaration;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigurationsIndexTest
+{
+
+    @Test
+    public void parse()
+    {
+        var properties = new Properties();
+        properties.setProperty("demo.Demo.types", "demo.Demo,demo.Marker");
+        properties.setProperty("demo.Demo.imports", "demo.Demo$Nested,demo.Other");
+        properties.setProperty("demo.Demo.property-source.0.location.0", "classpath:a.properties");
+        properties.setProperty("demo.Demo.property-source.1.name", "b");
+        properties.setProperty("demo.Demo.property-source.1.location.0", "classpath:b1.properties");
+        properties.setProperty("demo.Demo.property-source.1.location.1", "classpath:${b2}.properties");
+        properties.setProperty("demo.Demo$Nested.types", "demo.Demo$Nested");
+        properties.setProperty("demo.Demo$Nested.imports", "");
+
+        var index = ConfigurationsIndex.parse(properties);
+
+        assertThat(index.get("demo.Demo")).isEqualTo(new ConfigurationDeclaration(
+            "demo.Demo",
+            Set.of("demo.Demo", "demo.Marker"),
+            Set.of("demo.Demo$Nested", "demo.Other"),
+            List.of(
+                new PropertySourceDeclaration(null, "classpath:a.properties"),
+                new PropertySourceDeclaration("b", "classpath:b1.properties"),
+                new PropertySourceDeclaration("b", "classpath:${b2}.properties")
+            )
+        ));
+        assertThat(index.get("demo.Demo$Nested")).isEqualTo(new ConfigurationDeclaration(
+            "demo.Demo$Nested",
+            Set.of("demo.Demo$Nested"),
+            Set.of(),
+            List.of()
+        ));
+        assertThat(index.get("demo.Other")).isNull();
+    }
+
+}
@@ -0,0 +1,75 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+
+import java.util.Objects;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextConfigurationsTest
+{
+
+    @Test
+    public void childReusesParentAnalysis()
+    {
+        var builder = new SpringApplicationBuilder(ParentConfiguration.class)
+            .web(WebApplicationType.NONE)
+            .child(ChildConfiguration.class)
+            .web(WebApplicationType.NONE);
+
+        try (var child = builder.run()) {
+            var parent = Objects.requireNonNull(child.getParent());
+            var childStatistics = child.getBean(PropertySourcesOverridePrecedencePostProcessor.class).getStatistics();
+            var parentStatistics = parent.getBean(PropertySourcesOverridePrecedencePostProcessor.class).getStatistics();
+
+            // the child analyzes its own configurations together with the ones of the parent
+            assertThat(parentStatistics.configurations()).isEqualTo(2);
+            assertThat(childStatistics.configurations()).isEqualTo(3);
+
+            // the common configuration is imported by the child, so it overrides the parent
+            assertThat(child.getEnvironment().getPropertySources().stream().map(propertySource -> propertySource.getName()).toList())
+                .containsSubsequence("child", "common", "parent");
+
+            // the common configuration is registered in both contexts, but introspected only in the parent
+            var childConfigurations = child.getBean(ContextConfigurations.BEAN_NAME, ContextConfigurations.class);
+            var parentConfigurations = parent.getBean(ContextConfigurations.BEAN_NAME, ContextConfigurations.class);
+            assertThat(childConfigurations.declarations())
+                .containsKeys(ParentConfiguration.class.getName(), ChildConfiguration.class.getName(), CommonConfiguration.class.getName());
+            assertThat(childConfigurations.declarations().get(CommonConfiguration.class.getName()))
+                .isSameAs(parentConfigurations.declarations().get(CommonConfiguration.class.getName()));
+            assertThat(parentConfigurations.declarations())
+                .doesNotContainKey(ChildConfiguration.class.getName())
+                .as("without any property sources")
+                .doesNotContainKey(PropertySourcesOverridePrecedenceAutoConfiguration.class.getName());
+        }
+    }
+
+    @Configuration
+    @Import({PropertySourcesOverridePrecedenceAutoConfiguration.class, CommonConfiguration.class})
+    @PropertySource(name = "parent", value = "classpath:application.properties")
+    static class ParentConfiguration
+    {
+
+    }
+
+    @Configuration
+    @Import({PropertySourcesOverridePrecedenceAutoConfiguration.class, CommonConfiguration.class})
+    @PropertySource(name = "child", value = "classpath:application.properties")
+    static class ChildConfiguration
+    {
+
+    }
+
+    @Configuration
+    @PropertySource(name = "common", value = "classpath:application.properties")
+    static class CommonConfiguration
+    {
+
+    }
+
+}
@@ -0,0 +1,188 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.support.EncodedResource;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LazyPropertySourceFactoryTest
+{
+
+    @Test
+    public void readsOnFirstLookup() throws Exception
+    {
+        var resource = new ByteArrayResource("lazy.property=1".getBytes(StandardCharsets.ISO_8859_1), "lazy resource");
+        var propertySource = (LazyResourcePropertySource) new LazyPropertySourceFactory().createPropertySource(null, new EncodedResource(resource));
+
+        assertThat(propertySource.getName()).isEqualTo("lazy resource");
+        assertThat(propertySource.isLoaded()).isFalse();
+
+        assertThat(propertySource.getProperty("lazy.property")).isEqualTo("1");
+        assertThat(propertySource.isLoaded()).isTrue();
+    }
+
+    @Test
+    public void readByBinderEnumeration() throws Exception
+    {
+        var resource = new ByteArrayResource("lazy.property=1".getBytes(StandardCharsets.ISO_8859_1), "lazy resource");
+        var propertySource = (LazyResourcePropertySource) new LazyPropertySourceFactory().createPropertySource(null, new EncodedResource(resource));
+        var propertySources = new MutablePropertySources();
+        propertySources.addLast(propertySource);
+
+        // the known limitation: binding a prefix enumerates the names, even when none of the properties matches it
+        var bound = new Binder(ConfigurationPropertySources.from(propertySources)).bind("unrelated", Bindable.mapOf(String.class, String.class));
+
+        assertThat(bound.isBound()).isFalse();
+        assertThat(propertySource.isLoaded()).isTrue();
+    }
+
+    @Test
+    public void preloadConcurrently() throws Exception
+    {
+        int resources = 10;
+
+        // every read waits for all the others, so reading them one by one would time out
+        var allReading = new CyclicBarrier(resources);
+
+        var propertySources = new MutablePropertySources();
+        for (int i = 0; i < resources; i++) {
+            var resource = new ByteArrayResource(("lazy.property=" + i).getBytes(StandardCharsets.ISO_8859_1), "lazy resource " + i)
+            {
+                @Override
+                public InputStream getInputStream() throws IOException
+                {
+                    try {
+                        allReading.await(10, TimeUnit.SECONDS);
+
+                    } catch (InterruptedException | BrokenBarrierException | TimeoutException e) {
+                        throw new IOException("The resources are not read concurrently", e);
+                    }
+                    return super.getInputStream();
+                }
+            };
+            propertySources.addLast(new LazyPropertySourceFactory().createPropertySource(null, new EncodedResource(resource)));
+        }
+
+        assertThat(LazyPropertySourcesPreloading.preload(propertySources, resources)).isEqualTo(resources);
+        assertThat(propertySources.stream().allMatch(propertySource -> ((LazyResourcePropertySource) propertySource).isLoaded())).isTrue();
+        assertThat(propertySources.get("lazy resource 3").getProperty("lazy.property")).isEqualTo("3");
+
+        assertThat(LazyPropertySourcesPreloading.preload(propertySources, resources)).isZero();
+    }
+
+    @Test
+    public void preloadedByStartup()
+    {
+        var application = new SpringApplicationBuilder(LazyApp.class)
+            .web(WebApplicationType.NONE)
+            .properties(PropertySourcesOverridePrecedenceProperties.PREFIX + ".preload.enabled=true");
+
+        try (var context = application.run()) {
+            var lazyPropertySource = (LazyResourcePropertySource) context.getEnvironment().getPropertySources().get("lazy");
+            assertThat(lazyPropertySource).isNotNull();
+            assertThat(lazyPropertySource.isLoaded()).isTrue();
+        }
+    }
+
+    @Test
+    public void missingResource()
+    {
+        var resource = new ByteArrayResource(new byte[0])
+        {
+            @Override
+            public boolean exists()
+            {
+                return false;
+            }
+        };
+
+        assertThatThrownBy(() -> new LazyPropertySourceFactory().createPropertySource("missing", new EncodedResource(resource)))
+            .isInstanceOf(FileNotFoundException.class);
+    }
+
+    @Test
+    public void orderedWithEagerPropertySources()
+    {
+        new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PropertySourcesOverridePrecedenceAutoConfiguration.class))
+            .withUserConfiguration(AppConfiguration.class)
+            .run(context -> {
+                var propertySources = context.getBean(ConfigurableEnvironment.class).getPropertySources();
+
+                assertThat(propertySources.stream().filter(LazyResourcePropertySource.class::isInstance).count()).isEqualTo(1);
+                assertThat(propertySources.stream().map(propertySource -> propertySource.getName()).toList())
+                    .containsSubsequence("app", "class path resource [application.properties]");
+                assertThat(context.getEnvironment().getProperty("testing.property")).isEqualTo("1");
+            });
+    }
+
+    @Test
+    public void notReadByStartup()
+    {
+        var application = new SpringApplicationBuilder(LazyApp.class)
+            .web(WebApplicationType.NONE)
+            .properties(PropertySourcesOverridePrecedenceProperties.PREFIX + ".flatten-property-sources=true");
+
+        try (var context = application.run()) {
+            var lazyPropertySource = (LazyResourcePropertySource) context.getEnvironment().getPropertySources().get("lazy");
+            assertThat(lazyPropertySource).isNotNull();
+            assertThat(lazyPropertySource.isLoaded()).isFalse();
+
+            // a lookup, that is not answered by any of the previous property sources, reads it
+            assertThat(context.getEnvironment().getProperty("missing.property")).isNull();
+            assertThat(lazyPropertySource.isLoaded()).isTrue();
+        }
+    }
+
+    @Configuration
+    @Import(CoreConfiguration.class)
+    @PropertySource(name = "app", value = "classpath:application.properties")
+    static class AppConfiguration
+    {
+
+    }
+
+    @Configuration
+    @PropertySource(value = "classpath:application.properties", factory = LazyPropertySourceFactory.class)
+    @PropertySource(value = "classpath:missing.properties", factory = LazyPropertySourceFactory.class, ignoreResourceNotFound = true)
+    static class CoreConfiguration
+    {
+
+    }
+
+    /**
+     * Neither a component scan nor auto-configurations, that would look up properties during the startup.
+     */
+    @Configuration
+    @Import(PropertySourcesOverridePrecedenceAutoConfiguration.class)
+    @PropertySource(name = "app", value = "classpath:application.properties")
+    @PropertySource(name = "lazy", value = "classpath:application.properties", factory = LazyPropertySourceFactory.class)
+    static class LazyApp
+    {
+
+    }
+
+}
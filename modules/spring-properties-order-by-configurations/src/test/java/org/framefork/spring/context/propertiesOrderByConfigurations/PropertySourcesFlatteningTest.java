@@ -0,0 +1,94 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.boot.origin.Origin;
+import org.springframework.boot.origin.OriginTrackedValue;
+import org.springframework.boot.origin.TextResourceOrigin;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.PropertySourcesPropertyResolver;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PropertySourcesFlatteningTest
+{
+
+    @Test
+    public void flattenConsecutiveResources() throws IOException
+    {
+        var propertySources = new MutablePropertySources();
+        propertySources.addLast(new MapPropertySource("systemProperties", Map.of("shared", "system")));
+        propertySources.addLast(resource("config5", "shared=config5\nfive=5"));
+        propertySources.addLast(resource("config1", "shared=config1\none=1\nfive=1"));
+        propertySources.addLast(new OriginTrackedMapPropertySource("config3", Map.of("three", OriginTrackedValue.of("3", origin("config3"))), true));
+        propertySources.addLast(new MapPropertySource("other", Map.of("other", "other")));
+        propertySources.addLast(resource("config7", "seven=7"));
+
+        var expected = resolveAll(propertySources, "shared", "one", "three", "five", "seven", "other");
+
+        int flattened = PropertySourcesFlattening.flatten(propertySources);
+
+        assertThat(flattened).isEqualTo(3);
+        assertThat(propertySources.stream().map(PropertySource::getName).toList())
+            .containsExactly("systemProperties", FlattenedPropertySource.NAME_PREFIX + "config5", "other", "config7");
+        assertThat(((FlattenedPropertySource) propertySources.get(FlattenedPropertySource.NAME_PREFIX + "config5")).getFlattenedNames())
+            .containsExactly("config5", "config1", "config3");
+        assertThat(resolveAll(propertySources, "shared", "one", "three", "five", "seven", "other"))
+            .containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void keepsOrigins()
+    {
+        var flattened = FlattenedPropertySource.of(List.of(
+            new OriginTrackedMapPropertySource("config1", Map.of("one", OriginTrackedValue.of("1", origin("config1"))), true),
+            new MapPropertySource("config2", Map.of("one", "2", "two", "2"))
+        ));
+
+        assertThat(flattened.getProperty("one")).isEqualTo("1");
+        assertThat(flattened.getOrigin("one")).isEqualTo(origin("config1"));
+        assertThat(flattened.getProperty("two")).isEqualTo("2");
+        assertThat(flattened.getOrigin("two")).isNull();
+        assertThat(flattened.getPropertyNames()).containsExactlyInAnyOrder("one", "two");
+    }
+
+    @Test
+    public void mutableSourcesAreNotFlattened()
+    {
+        var propertySources = new MutablePropertySources();
+        propertySources.addLast(new OriginTrackedMapPropertySource("config1", Map.of("one", "1"), false));
+        propertySources.addLast(new OriginTrackedMapPropertySource("config2", Map.of("two", "2"), false));
+
+        assertThat(PropertySourcesFlattening.flatten(propertySources)).isZero();
+        assertThat(propertySources.stream().map(PropertySource::getName).toList())
+            .containsExactly("config1", "config2");
+    }
+
+    private static ResourcePropertySource resource(final String name, final String content) throws IOException
+    {
+        return new ResourcePropertySource(name, new ByteArrayResource(content.getBytes(StandardCharsets.ISO_8859_1)));
+    }
+
+    private static Origin origin(final String name)
+    {
+        return new TextResourceOrigin(new ByteArrayResource(new byte[0], name), new TextResourceOrigin.Location(0, 0));
+    }
+
+    private static List<String> resolveAll(final MutablePropertySources propertySources, final String... names)
+    {
+        var resolver = new PropertySourcesPropertyResolver(propertySources);
+        return List.of(names).stream()
+            .map(name -> String.valueOf(resolver.getProperty(name)))
+            .toList();
+    }
+
+}
@@ -0,0 +1,51 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.io.ResourceLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.NONE,
+    classes = {
+        ConfigurationsAnalyzerTest.App.class,
+    }
+)
+class PropertySourcesOrderAotProcessorTest
+{
+
+    @Autowired
+    ConfigurableListableBeanFactory beanFactory;
+
+    @Autowired
+    ConfigurableEnvironment environment;
+
+    @Autowired
+    ResourceLoader resourceLoader;
+
+    @Test
+    public void precomputedOrder()
+    {
+        var contribution = new PropertySourcesOrderAotProcessor().processAheadOfTime(beanFactory);
+        assertThat(contribution).isNotNull();
+
+        var analyzer = new ConfigurationsAnalyzer(beanFactory, environment, resourceLoader);
+        assertThat(contribution.order().propertySources())
+            .isNotEmpty()
+            .containsExactlyElementsOf(analyzer.getPropertySourceDeclarationsOrder());
+        assertThat(contribution.order().resolve(environment, resourceLoader))
+            .containsExactlyElementsOf(analyzer.getPropertySourcesOrder());
+    }
+
+    @Test
+    public void withoutPostProcessor()
+    {
+        assertThat(new PropertySourcesOrderAotProcessor().processAheadOfTime(new DefaultListableBeanFactory())).isNull();
+    }
+
+}
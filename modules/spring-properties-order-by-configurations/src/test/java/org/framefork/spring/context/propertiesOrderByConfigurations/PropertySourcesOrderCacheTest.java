@@ -0,0 +1,261 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOrderCache.DirectoryStore;
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOrderCache.MemoryStore;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PropertySourcesOrderCacheTest
+{
+
+    private static final List<List<PropertySourceDeclaration>> ORDER = List.of(
+        List.of(new PropertySourceDeclaration(null, "classpath:a.properties"), new PropertySourceDeclaration("b", "classpath:${region}/b.properties")),
+        List.of(new PropertySourceDeclaration(null, "classpath:c.properties"))
+    );
+
+    @TempDir
+    Path cacheDirectory;
+
+    @Test
+    public void cachedOrderSkipsAnalysis() throws IOException
+    {
+        var computed = run();
+        assertThat(computed.steps()).containsKeys(StartupSteps.BUILD_IMPORT_GRAPH, StartupSteps.SORT_CONFIGURATIONS);
+        assertThat(computed.steps().get(StartupSteps.DISCOVER_CONFIGURATIONS)).doesNotContainKey("cached");
+        try (var files = Files.list(cacheDirectory)) {
+            assertThat(files).hasSize(1);
+        }
+
+        var cached = run();
+        assertThat(cached.steps()).doesNotContainKeys(StartupSteps.BUILD_IMPORT_GRAPH, StartupSteps.SORT_CONFIGURATIONS);
+        assertThat(cached.steps().get(StartupSteps.DISCOVER_CONFIGURATIONS))
+            .containsEntry("cached", "true")
+            .doesNotContainKey("configurations");
+        assertThat(cached.propertySources()).containsExactlyElementsOf(computed.propertySources());
+    }
+
+    @Test
+    public void fingerprintDependsOnClassNamesIndexesAndSettings() throws IOException
+    {
+        var classLoader = PropertySourcesOrderCacheTest.class.getClassLoader();
+        String fingerprint = PropertySourcesOrderCache.fingerprint(List.of("com.example.A", "com.example.B"), classLoader, false);
+
+        assertThat(PropertySourcesOrderCache.fingerprint(List.of("com.example.B", "com.example.A"), classLoader, false))
+            .as("doesn't depend on the order of the bean definitions")
+            .isEqualTo(fingerprint);
+        assertThat(PropertySourcesOrderCache.fingerprint(List.of("com.example.A", "com.example.B", "com.example.C"), classLoader, false))
+            .isNotEqualTo(fingerprint);
+        assertThat(PropertySourcesOrderCache.fingerprint(List.of("com.example.A"), List.of("com.example.B"), classLoader, false))
+            .as("changes with the configurations inherited from the parent context, that are sorted after the own ones")
+            .isNotEqualTo(fingerprint);
+        assertThat(PropertySourcesOrderCache.fingerprint(List.of("com.example.A", "com.example.B"), classLoader, true))
+            .as("changes with the registered imports, that affect the order")
+            .isNotEqualTo(fingerprint);
+
+        Path classpath = cacheDirectory.resolve("classpath");
+        Path index = classpath.resolve(ConfigurationsIndex.INDEX_LOCATION);
+        Files.createDirectories(index.getParent());
+        Files.writeString(index, "com.example.A.types=com.example.A\n");
+        try (var indexedClassLoader = new URLClassLoader(new URL[]{classpath.toUri().toURL()}, classLoader)) {
+            assertThat(PropertySourcesOrderCache.fingerprint(List.of("com.example.A", "com.example.B"), indexedClassLoader, false))
+                .as("changes with the content of the indexes")
+                .isNotEqualTo(fingerprint);
+        }
+    }
+
+    @Test
+    public void fingerprintDependsOnClassFiles() throws IOException
+    {
+        var classLoader = PropertySourcesOrderCacheTest.class.getClassLoader();
+        List<String> classNames = List.of("com.example.App");
+
+        String importsCore = fingerprint(classNames, classLoader, "v1", writeConfiguration("com/example/Core", null));
+        assertThat(fingerprint(classNames, classLoader, "v2", writeConfiguration("com/example/Core", null)))
+            .as("the same classes")
+            .isEqualTo(importsCore);
+        assertThat(fingerprint(classNames, classLoader, "v3", writeConfiguration("com/example/Common", null)))
+            .as("changes with the imports")
+            .isNotEqualTo(importsCore);
+        assertThat(fingerprint(classNames, classLoader, "v4", writeConfiguration("com/example/Core", "classpath:app.properties")))
+            .as("changes with the property sources")
+            .isNotEqualTo(importsCore);
+    }
+
+    @Test
+    public void encodedOrderIsDecoded()
+    {
+        var lines = PropertySourcesOrderCache.encode(ORDER);
+
+        assertThat(lines).isNotNull();
+        assertThat(PropertySourcesOrderCache.decode(lines)).isEqualTo(ORDER);
+        assertThat(PropertySourcesOrderCache.decode(lines.subList(0, lines.size() - 1)))
+            .as("truncated")
+            .isNull();
+        assertThat(PropertySourcesOrderCache.encode(List.of(List.of(new PropertySourceDeclaration("a\tb", "classpath:a.properties")))))
+            .isNull();
+    }
+
+    @Test
+    public void directoryHitIsCopiedToMemory()
+    {
+        new PropertySourcesOrderCache(List.of(new DirectoryStore(cacheDirectory))).store("fingerprint", ORDER);
+
+        var memory = new MemoryStore(8);
+        var cache = new PropertySourcesOrderCache(List.of(memory, new DirectoryStore(cacheDirectory)));
+        assertThat(memory.load("fingerprint")).isNull();
+
+        assertThat(cache.load("fingerprint")).isEqualTo(ORDER);
+        assertThat(memory.load("fingerprint")).isEqualTo(PropertySourcesOrderCache.encode(ORDER));
+    }
+
+    @Test
+    public void malformedFileIsIgnored() throws IOException
+    {
+        var store = new DirectoryStore(cacheDirectory);
+        Files.writeString(store.file("fingerprint"), "no separator\n\n");
+
+        assertThat(new PropertySourcesOrderCache(List.of(store)).load("fingerprint")).isNull();
+    }
+
+    @Test
+    public void memoryStoreEvictsLeastRecentlyUsed()
+    {
+        var memory = new MemoryStore(2);
+        memory.store("a", List.of("A"));
+        memory.store("b", List.of("B"));
+        memory.load("a");
+        memory.store("c", List.of("C"));
+
+        assertThat(memory.load("a")).containsExactly("A");
+        assertThat(memory.load("b")).isNull();
+        assertThat(memory.load("c")).containsExactly("C");
+    }
+
+    @Test
+    public void concurrentContexts() throws Exception
+    {
+        var cache = new PropertySourcesOrderCache(List.of(new MemoryStore(8), new DirectoryStore(cacheDirectory)));
+
+        var executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<List<PropertySourceDeclaration>>>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                results.add(executor.submit(() -> {
+                    var cachedOrder = cache.load("fingerprint");
+                    if (cachedOrder != null) {
+                        return cachedOrder;
+                    }
+                    cache.store("fingerprint", ORDER);
+                    return ORDER;
+                }));
+            }
+            for (var result : results) {
+                assertThat(result.get()).isEqualTo(ORDER);
+            }
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Nullable
+    private String fingerprint(final List<String> classNames, final ClassLoader parent, final String version, final byte[] appClass) throws IOException
+    {
+        Path classpath = cacheDirectory.resolve(version);
+        Path classFile = classpath.resolve("com/example/App.class");
+        Files.createDirectories(classFile.getParent());
+        Files.write(classFile, appClass);
+
+        try (var classLoader = new URLClassLoader(new URL[]{classpath.toUri().toURL()}, parent)) {
+            return PropertySourcesOrderCache.fingerprint(classNames, classLoader, false);
+        }
+    }
+
+    /**
+     * {@code com.example.App}, a configuration, that imports the given class and declares the given property source.
+     */
+    private static byte[] writeConfiguration(final String importedClass, @Nullable final String propertySourceLocation)
+    {
+        var writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, "com/example/App", null, "java/lang/Object", null);
+        writer.visitAnnotation(Type.getDescriptor(Configuration.class), true).visitEnd();
+
+        AnnotationVisitor importAnnotation = writer.visitAnnotation(Type.getDescriptor(Import.class), true);
+        AnnotationVisitor importValues = importAnnotation.visitArray("value");
+        importValues.visit(null, Type.getObjectType(importedClass));
+        importValues.visitEnd();
+        importAnnotation.visitEnd();
+
+        if (propertySourceLocation != null) {
+            AnnotationVisitor propertySource = writer.visitAnnotation(Type.getDescriptor(PropertySource.class), true);
+            AnnotationVisitor locations = propertySource.visitArray("value");
+            locations.visit(null, propertySourceLocation);
+            locations.visitEnd();
+            propertySource.visitEnd();
+        }
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private Run run()
+    {
+        var applicationStartup = new BufferingApplicationStartup(10_000);
+
+        var application = new SpringApplicationBuilder(ConfigurationsAnalyzerTest.App.class)
+            .web(WebApplicationType.NONE)
+            .applicationStartup(applicationStartup)
+            .properties(
+                PropertySourcesOverridePrecedenceProperties.PREFIX + ".analysis-cache.enabled=false",
+                PropertySourcesOverridePrecedenceProperties.PREFIX + ".order-cache.enabled=true",
+                PropertySourcesOverridePrecedenceProperties.PREFIX + ".order-cache.directory=" + cacheDirectory
+            );
+
+        try (var context = application.run()) {
+            Map<String, Map<String, String>> steps = new HashMap<>();
+            for (StartupTimeline.TimelineEvent event : applicationStartup.getBufferedTimeline().getEvents()) {
+                Map<String, String> tags = new HashMap<>();
+                event.getStartupStep().getTags().forEach(tag -> tags.put(tag.getKey(), tag.getValue()));
+                steps.put(event.getStartupStep().getName(), tags);
+            }
+
+            return new Run(steps, context.getEnvironment().getPropertySources().stream().map(propertySource -> propertySource.getName()).toList());
+        }
+    }
+
+    private record Run(
+        Map<String, Map<String, String>> steps,
+        List<String> propertySources
+    )
+    {
+
+    }
+
+}
@@ -0,0 +1,64 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PropertySourcesOverridePrecedenceMetricsTest
+{
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(
+            PropertySourcesOverridePrecedenceAutoConfiguration.class,
+            PropertySourcesOverridePrecedenceMetricsAutoConfiguration.class
+        ))
+        .withUserConfiguration(AppConfiguration.class);
+
+    @Test
+    public void reportsLastReordering()
+    {
+        contextRunner.run(context -> {
+            var registry = new SimpleMeterRegistry();
+            context.getBean(PropertySourcesOverridePrecedenceMetrics.class).bindTo(registry);
+
+            assertThat(registry.get(PropertySourcesOverridePrecedenceMetrics.PREFIX + ".analysis.duration").timeGauge().value(TimeUnit.NANOSECONDS)).isPositive();
+            assertThat(registry.get(PropertySourcesOverridePrecedenceMetrics.PREFIX + ".configurations").gauge().value()).isEqualTo(2);
+            assertThat(registry.get(PropertySourcesOverridePrecedenceMetrics.PREFIX + ".import.edges").gauge().value()).isEqualTo(1);
+            assertThat(registry.get(PropertySourcesOverridePrecedenceMetrics.PREFIX + ".property.sources").tag("outcome", "skipped").gauge().value()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    public void withoutMicrometer()
+    {
+        contextRunner
+            .withClassLoader(new FilteredClassLoader(MeterBinder.class))
+            .run(context -> assertThat(context).doesNotHaveBean(PropertySourcesOverridePrecedenceMetrics.class));
+    }
+
+    @Configuration
+    @Import(CoreConfiguration.class)
+    @PropertySource("classpath:application.properties")
+    static class AppConfiguration
+    {
+
+    }
+
+    @Configuration
+    @PropertySource(value = "classpath:missing.properties", ignoreResourceNotFound = true)
+    static class CoreConfiguration
+    {
+
+    }
+
+}
@@ -0,0 +1,81 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOverridePrecedenceProperties.MetadataMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.File;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PropertySourcesOverridePrecedencePropertiesTest
+{
+
+    private static final String PREFIX = PropertySourcesOverridePrecedenceProperties.PREFIX + ".";
+
+    @Test
+    public void defaults()
+    {
+        var properties = PropertySourcesOverridePrecedenceProperties.bind(new StandardEnvironment());
+
+        assertThat(properties.getMetadataMode()).isEqualTo(MetadataMode.REFLECTION);
+        assertThat(properties.isUseIndex()).isTrue();
+        assertThat(properties.isUseRegisteredImports()).isTrue();
+        assertThat(properties.getMetadataParallelism()).isEqualTo(1);
+        assertThat(properties.isFlattenPropertySources()).isFalse();
+        assertThat(properties.getPreload().isEnabled()).isFalse();
+        assertThat(properties.getAnalysisCache().isEnabled()).isFalse();
+        assertThat(properties.getOrderCache().isEnabled()).isFalse();
+    }
+
+    @Test
+    public void bindsEveryProperty()
+    {
+        var properties = PropertySourcesOverridePrecedenceProperties.bind(environment(Map.ofEntries(
+            Map.entry(PREFIX + "metadata-mode", "asm"),
+            Map.entry(PREFIX + "use-index", "false"),
+            Map.entry(PREFIX + "use-registered-imports", "false"),
+            Map.entry(PREFIX + "metadata-parallelism", "4"),
+            Map.entry(PREFIX + "flatten-property-sources", "true"),
+            Map.entry(PREFIX + "preload.enabled", "true"),
+            Map.entry(PREFIX + "preload.max-threads", "2"),
+            Map.entry(PREFIX + "analysis-cache.enabled", "true"),
+            Map.entry(PREFIX + "analysis-cache.max-size", "3"),
+            Map.entry(PREFIX + "order-cache.enabled", "true"),
+            Map.entry(PREFIX + "order-cache.directory", "/tmp/orders")
+        )));
+
+        assertThat(properties.getMetadataMode()).isEqualTo(MetadataMode.ASM);
+        assertThat(properties.isUseIndex()).isFalse();
+        assertThat(properties.isUseRegisteredImports()).isFalse();
+        assertThat(properties.getMetadataParallelism()).isEqualTo(4);
+        assertThat(properties.isFlattenPropertySources()).isTrue();
+        assertThat(properties.getPreload().isEnabled()).isTrue();
+        assertThat(properties.getPreload().getMaxThreads()).isEqualTo(2);
+        assertThat(properties.getAnalysisCache().isEnabled()).isTrue();
+        assertThat(properties.getAnalysisCache().getMaxSize()).isEqualTo(3);
+        assertThat(properties.getOrderCache().isEnabled()).isTrue();
+        assertThat(properties.getOrderCache().getDirectory()).isEqualTo(new File("/tmp/orders"));
+    }
+
+    @Test
+    public void unknownMetadataMode()
+    {
+        var environment = environment(Map.of(PREFIX + "metadata-mode", "bytecode"));
+
+        assertThatThrownBy(() -> PropertySourcesOverridePrecedenceProperties.bind(environment))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("bytecode");
+    }
+
+    private static StandardEnvironment environment(final Map<String, Object> properties)
+    {
+        var environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", properties));
+        return environment;
+    }
+
+}
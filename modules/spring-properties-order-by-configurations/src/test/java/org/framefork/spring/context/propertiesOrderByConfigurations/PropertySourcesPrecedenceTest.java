@@ -0,0 +1,216 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.PropertySource;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PropertySourcesPrecedenceTest
+{
+
+    @Test
+    public void placeBetweenNeighbours()
+    {
+        var propertySources = propertySources("systemProperties", "config5", "config3", "other");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5", "config1", "config3", "config7"));
+
+        assertThat(precedence.place(new MapPropertySource("config1", Map.of()))).isTrue();
+        assertThat(precedence.place(new MapPropertySource("config7", Map.of()))).isTrue();
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5", "config1", "config3", "config7", "other");
+    }
+
+    @Test
+    public void placeAfterCursor()
+    {
+        var propertySources = propertySources("systemProperties", "other");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5", "config1"));
+
+        assertThat(precedence.place(new MapPropertySource("config1", Map.of()))).isTrue();
+        assertThat(precedence.place(new MapPropertySource("config5", Map.of()))).isTrue();
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5", "config1", "other");
+    }
+
+    @Test
+    public void moveAlreadyAdded()
+    {
+        var propertySources = propertySources("systemProperties", "config5", "config3", "other", "config1");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5", "config1", "config3"));
+
+        assertThat(precedence.place(propertySources.get("config1"))).isTrue();
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5", "config1", "config3", "other");
+    }
+
+    @Test
+    public void skipRemovedNeighbours()
+    {
+        var propertySources = propertySources("systemProperties", "config5", "config3", "other");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5", "config1", "config3"));
+
+        propertySources.remove("config5");
+        assertThat(precedence.place(new MapPropertySource("config1", Map.of()))).isTrue();
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config1", "config3", "other");
+    }
+
+    @Test
+    public void unknownPropertySource()
+    {
+        var propertySources = propertySources("systemProperties", "config5");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5"));
+
+        assertThat(precedence.place(new MapPropertySource("unknown", Map.of()))).isFalse();
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5");
+    }
+
+    @Test
+    public void placeAfterAnchor()
+    {
+        var propertySources = propertySources("systemProperties", "config5", "config3", "other");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5", "config1", "config3"));
+
+        precedence.place(new MapPropertySource("tenant", Map.of()), "config5");
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5", "tenant", "config3", "other");
+
+        // the anchored property source is now part of the computed order, and the ones after the anchor keep their precedence
+        assertThat(precedence.place(new MapPropertySource("tenant", Map.of()))).isTrue();
+        assertThat(precedence.place(new MapPropertySource("config1", Map.of()))).isTrue();
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5", "tenant", "config1", "config3", "other");
+    }
+
+    @Test
+    public void placeManyAfterAnchor()
+    {
+        var propertySources = propertySources("systemProperties", "config5", "config3", "other");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5", "config1", "config3"));
+
+        // more than the free ranks after the anchor, so the ranks have to be spaced out again
+        int tenants = 3 * PropertySourcesPrecedence.RANK_GAP_BITS;
+        List<String> expected = new ArrayList<>(List.of("systemProperties", "config5"));
+        for (int i = 0; i < tenants; i++) {
+            precedence.place(new MapPropertySource("tenant" + i, Map.of()), "config5");
+            expected.add(2, "tenant" + i);
+        }
+        assertThat(precedence.place(new MapPropertySource("config1", Map.of()))).isTrue();
+        expected.addAll(List.of("config1", "config3", "other"));
+
+        assertThat(names(propertySources)).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    public void unknownAnchor()
+    {
+        var propertySources = propertySources("systemProperties", "config5");
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5"));
+
+        assertThatThrownBy(() -> precedence.place(new MapPropertySource("tenant", Map.of()), "unknown"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("unknown");
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5");
+    }
+
+    @Test
+    public void placeAroundFlattened()
+    {
+        var propertySources = propertySources("systemProperties", "other");
+        propertySources.addBefore("other", FlattenedPropertySource.of(List.of(
+            new MapPropertySource("config5", Map.of()),
+            new MapPropertySource("config3", Map.of())
+        )));
+        var precedence = new PropertySourcesPrecedence(propertySources, "systemProperties", List.of("config5", "config1", "config3", "config7"));
+
+        assertThat(precedence.place(new MapPropertySource("config7", Map.of()))).isTrue();
+        assertThat(names(propertySources)).containsExactly("systemProperties", "flattened:config5", "config7", "other");
+
+        assertThatThrownBy(() -> precedence.place(new MapPropertySource("config1", Map.of())))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("flattened:config5");
+    }
+
+    @Test
+    public void registeredByPostProcessor()
+    {
+        new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PropertySourcesOverridePrecedenceAutoConfiguration.class))
+            .withUserConfiguration(AppConfiguration.class)
+            .run(context -> {
+                var propertySources = context.getBean(ConfigurableEnvironment.class).getPropertySources();
+
+                // the resource didn't exist when the context was refreshed
+                assertThat(context.getBean(PropertySourcesPrecedence.class).place(new MapPropertySource("core", Map.of("core.property", "1")))).isTrue();
+
+                assertThat(names(propertySources)).containsSubsequence("app", "core", "class path resource [application.properties]");
+            });
+    }
+
+    @Test
+    public void registeredAfterFlattening()
+    {
+        new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PropertySourcesOverridePrecedenceAutoConfiguration.class))
+            .withUserConfiguration(AppConfiguration.class)
+            .withPropertyValues(PropertySourcesOverridePrecedenceProperties.PREFIX + ".flatten-property-sources=true")
+            .run(context -> {
+                var precedence = context.getBean(PropertySourcesPrecedence.BEAN_NAME, PropertySourcesPrecedence.class);
+
+                // the app and the common property sources are merged, the core one would belong between them
+                assertThatThrownBy(() -> precedence.place(new MapPropertySource("core", Map.of("core.property", "1"))))
+                    .isInstanceOf(IllegalStateException.class)
+                    .hasMessageContaining("flattened:app");
+            });
+    }
+
+    @Configuration
+    @Import(CoreConfiguration.class)
+    @PropertySource(name = "app", value = "classpath:application.properties")
+    static class AppConfiguration
+    {
+
+    }
+
+    @Configuration
+    @Import(CommonConfiguration.class)
+    @PropertySource(name = "core", value = "classpath:missing.properties", ignoreResourceNotFound = true)
+    static class CoreConfiguration
+    {
+
+    }
+
+    @Configuration
+    @PropertySource("classpath:application.properties")
+    static class CommonConfiguration
+    {
+
+    }
+
+    private static MutablePropertySources propertySources(final String... names)
+    {
+        var result = new MutablePropertySources();
+        for (String name : names) {
+            result.addLast(new MapPropertySource(name, Map.of()));
+        }
+        return result;
+    }
+
+    private static List<String> names(final MutablePropertySources propertySources)
+    {
+        return propertySources.stream().map(propertySource -> propertySource.getName()).toList();
+    }
+
+}
@@ -0,0 +1,191 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PropertySourcesReorderingTest
+{
+
+    @Test
+    public void reorderAfterCursor()
+    {
+        var propertySources = propertySources("systemProperties", "config1", "other", "config3", "config5");
+
+        var result = PropertySourcesReordering.reorder(propertySources, "systemProperties", resources("config5", "missing", "config1", "config3"));
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5", "config1", "config3", "other");
+        assertThat(result.moved()).isEqualTo(2);
+        assertThat(result.skipped()).isEqualTo(1);
+    }
+
+    @Test
+    public void moveEvents() throws IOException
+    {
+        var propertySources = propertySources("systemProperties", "config1", "other", "config3", "config5");
+
+        try (var recording = new Recording()) {
+            recording.enable(PropertySourceMoveEvent.NAME).withoutThreshold();
+            recording.start();
+            PropertySourcesReordering.reorder(propertySources, "systemProperties", resources("config5", "config1", "config3"));
+            recording.stop();
+
+            Path file = Files.createTempFile("property-source-moves", ".jfr");
+            try {
+                recording.dump(file);
+                assertThat(RecordingFile.readAllEvents(file))
+                    .filteredOn(event -> event.getEventType().getName().equals(PropertySourceMoveEvent.NAME))
+                    .map(event -> event.getString("propertySource") + " after " + event.getString("after"))
+                    .containsExactly("config5 after systemProperties", "other after config3");
+
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    public void alreadyOrdered()
+    {
+        var propertySources = new ImmutablePropertySources();
+        for (String name : List.of("systemProperties", "config5", "config1", "config3", "other")) {
+            propertySources.initialize(new MapPropertySource(name, Map.of()));
+        }
+
+        var result = PropertySourcesReordering.reorder(propertySources, "systemProperties", resources("config5", "config1", "config3"));
+
+        assertThat(names(propertySources)).containsExactly("systemProperties", "config5", "config1", "config3", "other");
+        assertThat(result.moved()).isZero();
+        assertThat(result.skipped()).isZero();
+    }
+
+    @Test
+    public void sameOrderAsMovingOneByOne()
+    {
+        var random = new Random(42);
+        int compared = 0;
+        while (compared < 1000) {
+            int size = 2 + random.nextInt(40);
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                names.add("source" + i);
+            }
+
+            List<String> order = new ArrayList<>();
+            int orderSize = random.nextInt(size + 5);
+            for (int i = 0; i < orderSize; i++) {
+                order.add("source" + random.nextInt(size + 3)); // may be missing or repeated
+            }
+
+            String cursorName = names.get(random.nextInt(size));
+
+            var expected = propertySources(names.toArray(String[]::new));
+            try {
+                legacyReorder(expected, cursorName, resources(order.toArray(String[]::new)));
+            } catch (IllegalArgumentException e) {
+                continue; // moving a source relative to itself is not possible one by one
+            }
+
+            var actual = propertySources(names.toArray(String[]::new));
+            PropertySourcesReordering.reorder(actual, cursorName, resources(order.toArray(String[]::new)));
+
+            assertThat(names(actual))
+                .as("cursor %s, order %s", cursorName, order)
+                .containsExactlyElementsOf(names(expected));
+            compared++;
+        }
+    }
+
+    /**
+     * The original implementation, that moves every resource individually.
+     */
+    private static void legacyReorder(final MutablePropertySources propertySources, final String cursorName, final List<PropertySourceResource> order)
+    {
+        String previousName = cursorName;
+        for (var nextResource : order) {
+            PropertySource<?> nextPropertySource = propertySources.get(nextResource.name());
+            if (nextPropertySource == null) {
+                continue;
+            }
+
+            propertySources.addAfter(previousName, nextPropertySource);
+            previousName = nextResource.name();
+        }
+    }
+
+    /**
+     * Fails on any attempt to move the property sources.
+     */
+    private static final class ImmutablePropertySources extends MutablePropertySources
+    {
+
+        void initialize(final PropertySource<?> propertySource)
+        {
+            super.addLast(propertySource);
+        }
+
+        @Override
+        public void addFirst(final PropertySource<?> propertySource)
+        {
+            throw new UnsupportedOperationException("addFirst");
+        }
+
+        @Override
+        public void addLast(final PropertySource<?> propertySource)
+        {
+            throw new UnsupportedOperationException("addLast");
+        }
+
+        @Override
+        public void addBefore(final String relativePropertySourceName, final PropertySource<?> propertySource)
+        {
+            throw new UnsupportedOperationException("addBefore");
+        }
+
+        @Override
+        public void addAfter(final String relativePropertySourceName, final PropertySource<?> propertySource)
+        {
+            throw new UnsupportedOperationException("addAfter");
+        }
+
+    }
+
+    private static MutablePropertySources propertySources(final String... names)
+    {
+        var result = new MutablePropertySources();
+        for (String name : names) {
+            result.addLast(new MapPropertySource(name, Map.of()));
+        }
+        return result;
+    }
+
+    private static List<PropertySourceResource> resources(final String... names)
+    {
+        List<PropertySourceResource> result = new ArrayList<>();
+        for (String name : names) {
+            result.add(new PropertySourceResource(new ByteArrayResource(new byte[0]), name, "classpath:" + name + ".properties"));
+        }
+        return result;
+    }
+
+    private static List<String> names(final MutablePropertySources propertySources)
+    {
+        return propertySources.stream().map(PropertySource::getName).toList();
+    }
+
+}
@@ -0,0 +1,175 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceDeclaration;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
+import org.junit.jupiter.api.Test;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Opcodes;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SpringConfigurationUtilsTest
+{
+
+    @Test
+    public void allSuperTypesAreSharedBetweenCallers()
+    {
+        var superTypes = SpringConfigurationUtils.getAllSuperTypes(ChildConfiguration.class);
+
+        assertThat(superTypes).containsExactly(ChildConfiguration.class, ModuleConfiguration.class);
+        assertThat(SpringConfigurationUtils.getAllSuperTypes(ChildConfiguration.class)).isSameAs(superTypes);
+    }
+
+    @Test
+    public void allBeanTypeNamesAreSharedBetweenCallers()
+    {
+        var beanTypeNames = SpringConfigurationUtils.getAllBeanTypeNames(new RootBeanDefinition(ChildConfiguration.class));
+
+        assertThat(beanTypeNames).containsExactly(ChildConfiguration.class.getName(), ModuleConfiguration.class.getName());
+        assertThat(SpringConfigurationUtils.getAllBeanTypeNames(new RootBeanDefinition(ChildConfiguration.class))).isSameAs(beanTypeNames);
+    }
+
+    @Test
+    public void classForNameUsesThreadContextClassLoader()
+    {
+        var classLoader = new GeneratedClassLoader(getClass().getClassLoader(), Map.of("com.example.ContextOnly", generateClass("com/example/ContextOnly", "java/lang/Object")));
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previousClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            Class<?> type = SpringConfigurationUtils.classForName("com.example.ContextOnly");
+
+            assertThat(type.getName()).isEqualTo("com.example.ContextOnly");
+            assertThat(type.getClassLoader()).isSameAs(classLoader);
+
+        } finally {
+            thread.setContextClassLoader(previousClassLoader);
+        }
+    }
+
+    @Test
+    public void classForNameWrapsLinkageErrors()
+    {
+        var classLoader = new GeneratedClassLoader(getClass().getClassLoader(), Map.of("com.example.Broken", generateClass("com/example/Broken", "com/example/MissingSuperClass")));
+
+        Thread thread = Thread.currentThread();
+        ClassLoader previousClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            assertThatThrownBy(() -> SpringConfigurationUtils.classForName("com.example.Broken"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageStartingWith("Cannot locate class 'com.example.Broken' on classpath")
+                .hasCauseInstanceOf(NoClassDefFoundError.class);
+
+        } finally {
+            thread.setContextClassLoader(previousClassLoader);
+        }
+    }
+
+    @Test
+    public void classForNameWrapsMissingClasses()
+    {
+        assertThatThrownBy(() -> SpringConfigurationUtils.classForName("com.example.Missing"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageStartingWith("Cannot locate class 'com.example.Missing' on classpath")
+            .hasCauseInstanceOf(ClassNotFoundException.class);
+    }
+
+    @Test
+    public void propertySourcesLocationsAreResolvedOnce()
+    {
+        var environment = new MockEnvironment().withProperty("app.region", "eu");
+        var loadedResources = new AtomicInteger();
+        var resourceLoader = new DefaultResourceLoader()
+        {
+            @Override
+            public Resource getResource(final String location)
+            {
+                loadedResources.incrementAndGet();
+                return super.getResource(location);
+            }
+        };
+        var locationResolver = new PropertySourceLocationResolver(environment, resourceLoader);
+
+        var first = SpringConfigurationUtils.getPropertySourcesLocations(
+            List.of(new PropertySourceDeclaration(null, "classpath:${app.region}/defaults.properties")),
+            locationResolver
+        );
+        var second = SpringConfigurationUtils.getPropertySourcesLocations(
+            List.of(
+                new PropertySourceDeclaration("named", "classpath:${app.region}/defaults.properties"),
+                new PropertySourceDeclaration(null, "classpath:${app.region}/defaults.properties")
+            ),
+            locationResolver
+        );
+
+        assertThat(first)
+            .map(PropertySourceResource::name)
+            .containsExactly("class path resource [eu/defaults.properties]");
+        assertThat(second)
+            .map(PropertySourceResource::name)
+            .containsExactly("class path resource [eu/defaults.properties]", "named");
+        assertThat(second)
+            .allSatisfy(resource -> assertThat(resource.resource()).isSameAs(first.iterator().next().resource()));
+
+        assertThat(loadedResources).hasValue(1);
+        assertThat(locationResolver.size()).isEqualTo(1);
+    }
+
+    private static byte[] generateClass(final String internalName, final String superInternalName)
+    {
+        var writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, superInternalName, null);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private static final class GeneratedClassLoader extends ClassLoader
+    {
+
+        private final Map<String, byte[]> classes;
+
+        GeneratedClassLoader(final ClassLoader parent, final Map<String, byte[]> classes)
+        {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException
+        {
+            byte[] bytecode = classes.get(name);
+            if (bytecode == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+
+    }
+
+    interface ModuleConfiguration
+    {
+
+    }
+
+    static class ParentConfiguration implements ModuleConfiguration
+    {
+
+    }
+
+    static class ChildConfiguration extends ParentConfiguration
+    {
+
+    }
+
+}
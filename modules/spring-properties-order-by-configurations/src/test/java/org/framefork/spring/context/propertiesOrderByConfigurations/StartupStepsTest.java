@@ -0,0 +1,98 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.GenericBeanDefinition;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.annotation.ConfigurationClassPostProcessor;
+import org.springframework.core.Conventions;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.core.metrics.StartupStep;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StartupStepsTest
+{
+
+    @Test
+    public void recordsAllPhases()
+    {
+        var applicationStartup = new BufferingApplicationStartup(10_000);
+
+        var application = new SpringApplicationBuilder(ConfigurationsAnalyzerTest.App.class)
+            .web(WebApplicationType.NONE)
+            .applicationStartup(applicationStartup);
+
+        try (var ignored = application.run()) {
+            Map<String, Map<String, String>> steps = new HashMap<>();
+            for (StartupTimeline.TimelineEvent event : applicationStartup.getBufferedTimeline().getEvents()) {
+                steps.put(event.getStartupStep().getName(), tags(event.getStartupStep()));
+            }
+
+            assertThat(steps.get(StartupSteps.COLLECT_PROPERTY_SOURCES))
+                .containsKeys("propertySources", "resources");
+            assertThat(steps.get(StartupSteps.DISCOVER_CONFIGURATIONS))
+                .containsKeys("beans", "configurations");
+            assertThat(steps.get(StartupSteps.REORDER_PROPERTY_SOURCES))
+                .containsKeys("resources", "moved");
+
+            String configurations = steps.get(StartupSteps.DISCOVER_CONFIGURATIONS).get("configurations");
+            assertThat(Integer.parseInt(configurations)).isPositive();
+            assertThat(steps.get(StartupSteps.BUILD_IMPORT_GRAPH))
+                .containsEntry("configurations", configurations)
+                .containsKey("edges");
+            assertThat(steps.get(StartupSteps.SORT_CONFIGURATIONS))
+                .containsEntry("configurations", configurations);
+        }
+    }
+
+    @Test
+    public void endsStepsOfFailedAnalysis() throws IOException
+    {
+        var applicationStartup = new BufferingApplicationStartup(10_000);
+
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setApplicationStartup(applicationStartup);
+        var missingConfiguration = new GenericBeanDefinition();
+        missingConfiguration.setBeanClassName("com.example.MissingConfiguration");
+        missingConfiguration.setAttribute(Conventions.getQualifiedAttributeName(ConfigurationClassPostProcessor.class, "configurationClass"), "full");
+        beanFactory.registerBeanDefinition("missingConfiguration", missingConfiguration);
+
+        var environment = new StandardEnvironment();
+        environment.getPropertySources().addLast(new ResourcePropertySource("config", new ByteArrayResource("config.property=1".getBytes(StandardCharsets.ISO_8859_1))));
+
+        var postProcessor = new PropertySourcesOverridePrecedencePostProcessor();
+        postProcessor.setEnvironment(environment);
+        postProcessor.setResourceLoader(new DefaultResourceLoader());
+
+        assertThatThrownBy(() -> postProcessor.postProcessBeanFactory(beanFactory))
+            .isInstanceOf(IllegalStateException.class);
+
+        // the buffered timeline only has the steps, that were ended
+        assertThat(applicationStartup.getBufferedTimeline().getEvents())
+            .map(event -> event.getStartupStep().getName())
+            .contains(StartupSteps.COLLECT_PROPERTY_SOURCES, StartupSteps.DISCOVER_CONFIGURATIONS);
+    }
+
+    private static Map<String, String> tags(final StartupStep step)
+    {
+        Map<String, String> result = new HashMap<>();
+        StreamSupport.stream(step.getTags().spliterator(), false)
+            .forEach(tag -> result.put(tag.getKey(), tag.getValue()));
+        return result;
+    }
+
+}
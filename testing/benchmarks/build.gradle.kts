@@ -0,0 +1,27 @@
+plugins {
+    id("org.framefork.build.library-internal")
+    alias(libs.plugins.jmh)
+}
+
+dependencies {
+    jmhImplementation(project(":spring-properties-order-by-configurations"))
+
+    jmhImplementation(enforcedPlatform("org.springframework.boot:spring-boot-dependencies:${libs.versions.spring.boot.get()}"))
+    jmhImplementation(libs.logback.classic)
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+
+    // ./gradlew :benchmarks:jmh -Pjmh.includes=ConfigurationsAnalyzerBenchmark.sort -Pjmh.params=configurations=10000
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.add(it) }
+    providers.gradleProperty("jmh.params").orNull?.let { params ->
+        params.split(";").map { it.split("=", limit = 2) }.forEach { (name, values) ->
+            benchmarkParameters.put(name, objects.listProperty(String::class.java).value(values.split(",")))
+        }
+    }
+}
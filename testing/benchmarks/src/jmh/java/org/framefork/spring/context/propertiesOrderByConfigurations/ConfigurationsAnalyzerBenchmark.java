@@ -0,0 +1,206 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.framefork.spring.context.propertiesOrderByConfigurations.ConfigurationsAnalyzer.ConfigurationClass;
+import org.framefork.spring.context.propertiesOrderByConfigurations.PropertySourcesOverridePrecedenceProperties.MetadataMode;
+import org.framefork.spring.context.propertiesOrderByConfigurations.SpringConfigurationUtils.PropertySourceResource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the individual phases of the analysis and the whole post-processor,
+ * against a generated graph of configurations (see {@link SyntheticConfigurations}).
+ *
+ * <p>The phases are measured in isolation, each one starting from the precomputed result of the previous phase.
+ * The parameters are split into states, so that every benchmark runs only with the parameters, that can affect it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfigurationsAnalyzerBenchmark
+{
+
+    @Benchmark
+    public Set<String> beanScan(final Graph graph)
+    {
+        return ConfigurationsAnalyzer.findConfigurationBeanNames(graph.beanFactory);
+    }
+
+    @Benchmark
+    public List<ConfigurationClass> metadataResolution(final Graph graph, final Metadata metadata)
+    {
+        // a fresh resolver, so that the class files are read again in the ASM mode
+        var resolver = ConfigurationMetadataResolver.create(metadata.metadataMode, graph.synthetic.getResourceLoader());
+        return ConfigurationsAnalyzer.findConfigurations(graph.beanFactory, graph.configurationBeanNames, graph.environment, graph.synthetic.getResourceLoader(), resolver, metadata.metadataParallelism);
+    }
+
+    @Benchmark
+    public ImportGraph graphBuild(final Graph graph)
+    {
+        return ConfigurationsAnalyzer.buildImportGraph(graph.configurationClasses);
+    }
+
+    @Benchmark
+    public List<ConfigurationClass> sort(final Graph graph)
+    {
+        return ConfigurationsAnalyzer.getConfigurationsSortedByImports(graph.configurationClasses, graph.importGraph);
+    }
+
+    @Benchmark
+    public MutablePropertySources reorder(final Graph graph, final UnorderedEnvironment unordered)
+    {
+        MutablePropertySources propertySources = unordered.environment.getPropertySources();
+        PropertySourcesReordering.reorder(
+            propertySources,
+            StandardEnvironment.SYSTEM_ENVIRONMENT_PROPERTY_SOURCE_NAME,
+            graph.propertySourcesOrder
+        );
+        return propertySources;
+    }
+
+    @Benchmark
+    public MutablePropertySources postProcessBeanFactory(final Graph graph, final PostProcessorContext context)
+    {
+        var postProcessor = new PropertySourcesOverridePrecedencePostProcessor();
+        postProcessor.setEnvironment(context.environment);
+        postProcessor.setResourceLoader(graph.synthetic.getResourceLoader());
+        postProcessor.postProcessBeanFactory(context.beanFactory);
+        return context.environment.getPropertySources();
+    }
+
+    /**
+     * The generated configurations, with the precomputed results of all the phases.
+     */
+    @State(Scope.Thread)
+    public static class Graph
+    {
+
+        @Param({"100", "1000", "10000", "50000"})
+        public int configurations;
+
+        @Param({"2", "8"})
+        public int fanOut;
+
+        @Param({"4", "16"})
+        public int depth;
+
+        @Param({"0.0", "0.5"})
+        public double diamondDensity;
+
+        /**
+         * With {@code 0}, all the configurations are pruned before they are fully analyzed.
+         */
+        @Param({"0", "1", "3"})
+        public int propertySourcesPerClass;
+
+        private SyntheticConfigurations synthetic;
+        private ClassLoader originalClassLoader;
+        private DefaultListableBeanFactory beanFactory;
+        private StandardEnvironment environment;
+
+        private Set<String> configurationBeanNames;
+        private List<ConfigurationClass> configurationClasses;
+        private ImportGraph importGraph;
+        private List<PropertySourceResource> propertySourcesOrder;
+
+        @Setup(Level.Trial)
+        public void setUp()
+        {
+            synthetic = new SyntheticConfigurations(configurations, fanOut, depth, diamondDensity, propertySourcesPerClass);
+
+            // the analyzer resolves configuration classes by name, using the thread context ClassLoader
+            originalClassLoader = Thread.currentThread().getContextClassLoader();
+            Thread.currentThread().setContextClassLoader(synthetic.getClassLoader());
+
+            beanFactory = synthetic.createBeanFactory();
+            environment = synthetic.createEnvironment();
+
+            configurationBeanNames = ConfigurationsAnalyzer.findConfigurationBeanNames(beanFactory);
+            configurationClasses = ConfigurationsAnalyzer.findConfigurations(beanFactory, configurationBeanNames, environment, synthetic.getResourceLoader(), new ReflectionConfigurationMetadataResolver());
+            importGraph = ConfigurationsAnalyzer.buildImportGraph(configurationClasses);
+            propertySourcesOrder = new ConfigurationsAnalyzer(configurationClasses).getPropertySourcesOrder();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown()
+        {
+            Thread.currentThread().setContextClassLoader(originalClassLoader);
+        }
+
+    }
+
+    /**
+     * Settings of the metadata extraction, which only affect the metadata resolution and the whole post-processor.
+     */
+    @State(Scope.Thread)
+    public static class Metadata
+    {
+
+        @Param({"REFLECTION", "ASM"})
+        public MetadataMode metadataMode;
+
+        @Param({"1", "4"})
+        public int metadataParallelism;
+
+    }
+
+    /**
+     * The reordering mutates the environment, so every invocation needs a fresh one.
+     */
+    @State(Scope.Thread)
+    public static class UnorderedEnvironment
+    {
+
+        private StandardEnvironment environment;
+
+        @Setup(Level.Invocation)
+        public void setUp(final Graph graph)
+        {
+            environment = graph.synthetic.createEnvironment();
+        }
+
+    }
+
+    /**
+     * A fresh environment for every invocation, with the settings of the post-processor,
+     * and a fresh bean factory, because the post-processor registers its results as singletons (e.g. the {@link PropertySourcesPrecedence}),
+     * that the following invocations would otherwise find and reuse.
+     */
+    @State(Scope.Thread)
+    public static class PostProcessorContext
+    {
+
+        private DefaultListableBeanFactory beanFactory;
+        private StandardEnvironment environment;
+
+        @Setup(Level.Invocation)
+        public void setUp(final Graph graph, final Metadata metadata)
+        {
+            beanFactory = graph.synthetic.createBeanFactory();
+            environment = graph.synthetic.createEnvironment();
+            environment.getPropertySources().addFirst(new MapPropertySource("benchmark", Map.of(
+                PropertySourcesOverridePrecedenceProperties.PREFIX + ".metadata-mode", metadata.metadataMode.name(),
+                PropertySourcesOverridePrecedenceProperties.PREFIX + ".metadata-parallelism", String.valueOf(metadata.metadataParallelism),
+                // every invocation has to analyze the configurations, instead of reusing the order of the previous one
+                PropertySourcesOverridePrecedenceProperties.PREFIX + ".analysis-cache.enabled", "false"
+            )));
+        }
+
+    }
+
+}
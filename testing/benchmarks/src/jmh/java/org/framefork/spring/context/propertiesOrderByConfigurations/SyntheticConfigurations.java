@@ -0,0 +1,277 @@
+package org.framefork.spring.context.propertiesOrderByConfigurations;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.boot.env.OriginTrackedMapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates a graph of {@link org.springframework.context.annotation.Configuration} classes directly as bytecode,
+ * so that the benchmarks can run against thousands of real classes without them having to exist in the sources.
+ *
+ * <p>The configurations are split into {@code depth} layers, every configuration imports {@code fanOut} configurations
+ * from the next layer, and {@code diamondDensity} is the probability that an import targets a random (likely already imported)
+ * configuration instead of a fresh one. The generation is seeded, so the same parameters always produce the same graph.
+ */
+final class SyntheticConfigurations
+{
+
+    private static final String PACKAGE = "org/framefork/benchmarks/generated/";
+    private static final String MODULE_INTERFACES = PACKAGE + "ModuleConfiguration";
+    private static final int MODULES = 8;
+
+    private final int configurations;
+    private final int propertySourcesPerClass;
+    private final List<List<Integer>> imports;
+    private final SyntheticClassLoader classLoader;
+    private final ResourceLoader resourceLoader;
+
+    SyntheticConfigurations(
+        final int configurations,
+        final int fanOut,
+        final int depth,
+        final double diamondDensity,
+        final int propertySourcesPerClass
+    )
+    {
+        this.configurations = configurations;
+        this.propertySourcesPerClass = propertySourcesPerClass;
+        this.imports = generateImports(configurations, fanOut, depth, diamondDensity);
+        this.classLoader = new SyntheticClassLoader(SyntheticConfigurations.class.getClassLoader(), generateClasses());
+        this.resourceLoader = new DefaultResourceLoader(classLoader);
+    }
+
+    ClassLoader getClassLoader()
+    {
+        return classLoader;
+    }
+
+    ResourceLoader getResourceLoader()
+    {
+        return resourceLoader;
+    }
+
+    DefaultListableBeanFactory createBeanFactory()
+    {
+        var beanFactory = new DefaultListableBeanFactory();
+        beanFactory.setBeanClassLoader(classLoader);
+
+        for (int i = 0; i < configurations; i++) {
+            try {
+                Class<?> configurationClass = classLoader.loadClass(className(i).replace('/', '.'));
+                beanFactory.registerBeanDefinition("configuration" + i, new AnnotatedGenericBeanDefinition(configurationClass));
+
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        return beanFactory;
+    }
+
+    /**
+     * Creates an environment with all the property sources, that the configurations declare, in reverse order,
+     * which is the worst case for the post-processor, because every single one of them has to be moved.
+     */
+    StandardEnvironment createEnvironment()
+    {
+        var environment = new StandardEnvironment();
+        MutablePropertySources propertySources = environment.getPropertySources();
+
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < configurations; i++) {
+            for (String location : propertySourceLocations(i)) {
+                names.add(resourceLoader.getResource(location).getDescription());
+            }
+        }
+        Collections.reverse(names);
+
+        for (String name : names) {
+            propertySources.addLast(new OriginTrackedMapPropertySource(name, Map.of("benchmark.property", name)));
+        }
+
+        return environment;
+    }
+
+    private static List<List<Integer>> generateImports(
+        final int configurations,
+        final int fanOut,
+        final int depth,
+        final double diamondDensity
+    )
+    {
+        var random = new Random(configurations * 31L + fanOut * 17L + depth);
+
+        // layer boundaries, the configurations of layer N are [layerStart[N], layerStart[N + 1])
+        int layers = Math.max(1, Math.min(depth, configurations));
+        int[] layerStart = new int[layers + 1];
+        for (int layer = 0; layer <= layers; layer++) {
+            layerStart[layer] = (int) ((long) configurations * layer / layers);
+        }
+
+        List<List<Integer>> result = new ArrayList<>(configurations);
+        for (int layer = 0; layer < layers; layer++) {
+            int nextLayerSize = layer + 1 < layers ? layerStart[layer + 2] - layerStart[layer + 1] : 0;
+            int nextFresh = 0;
+
+            for (int i = layerStart[layer]; i < layerStart[layer + 1]; i++) {
+                Set<Integer> configurationImports = new LinkedHashSet<>();
+                for (int j = 0; j < fanOut && nextLayerSize > 0; j++) {
+                    int target = random.nextDouble() < diamondDensity
+                        ? random.nextInt(nextLayerSize)
+                        : nextFresh++ % nextLayerSize;
+                    configurationImports.add(layerStart[layer + 1] + target);
+                }
+                result.add(List.copyOf(configurationImports));
+            }
+        }
+
+        return result;
+    }
+
+    private Map<String, byte[]> generateClasses()
+    {
+        Map<String, byte[]> result = new HashMap<>();
+
+        for (int module = 0; module < MODULES; module++) {
+            String name = MODULE_INTERFACES + module;
+            result.put(name.replace('/', '.'), generateModuleInterface(name));
+        }
+
+        for (int i = 0; i < configurations; i++) {
+            result.put(className(i).replace('/', '.'), generateConfiguration(i));
+        }
+
+        return result;
+    }
+
+    private static byte[] generateModuleInterface(final String name)
+    {
+        var writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT | Opcodes.ACC_INTERFACE, name, null, "java/lang/Object", null);
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private byte[] generateConfiguration(final int index)
+    {
+        String name = className(index);
+
+        var writer = new ClassWriter(0);
+        writer.visit(Opcodes.V17, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, name, null, "java/lang/Object", new String[]{MODULE_INTERFACES + (index % MODULES)});
+
+        writer.visitAnnotation("Lorg/springframework/context/annotation/Configuration;", true).visitEnd();
+
+        List<Integer> configurationImports = imports.get(index);
+        if (!configurationImports.isEmpty()) {
+            AnnotationVisitor importAnnotation = writer.visitAnnotation("Lorg/springframework/context/annotation/Import;", true);
+            AnnotationVisitor importValues = importAnnotation.visitArray("value");
+            for (int imported : configurationImports) {
+                importValues.visit(null, Type.getObjectType(className(imported)));
+            }
+            importValues.visitEnd();
+            importAnnotation.visitEnd();
+        }
+
+        List<String> locations = propertySourceLocations(index);
+        if (!locations.isEmpty()) {
+            AnnotationVisitor containerAnnotation = writer.visitAnnotation("Lorg/springframework/context/annotation/PropertySources;", true);
+            AnnotationVisitor containerValues = containerAnnotation.visitArray("value");
+            for (String location : locations) {
+                AnnotationVisitor propertySource = containerValues.visitAnnotation(null, "Lorg/springframework/context/annotation/PropertySource;");
+                AnnotationVisitor propertySourceValues = propertySource.visitArray("value");
+                propertySourceValues.visit(null, location);
+                propertySourceValues.visitEnd();
+                propertySource.visit("ignoreResourceNotFound", Boolean.TRUE);
+                propertySource.visitEnd();
+            }
+            containerValues.visitEnd();
+            containerAnnotation.visitEnd();
+        }
+
+        MethodVisitor constructor = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(1, 1);
+        constructor.visitEnd();
+
+        writer.visitEnd();
+        return writer.toByteArray();
+    }
+
+    private List<String> propertySourceLocations(final int index)
+    {
+        List<String> result = new ArrayList<>(propertySourcesPerClass);
+        for (int i = 0; i < propertySourcesPerClass; i++) {
+            result.add("classpath:benchmarks/config" + index + "-" + i + ".properties");
+        }
+        return result;
+    }
+
+    private static String className(final int index)
+    {
+        return PACKAGE + "Configuration" + index;
+    }
+
+    private static final class SyntheticClassLoader extends ClassLoader
+    {
+
+        private final Map<String, byte[]> classes;
+
+        SyntheticClassLoader(final ClassLoader parent, final Map<String, byte[]> classes)
+        {
+            super(parent);
+            this.classes = classes;
+        }
+
+        @Override
+        protected Class<?> findClass(final String name) throws ClassNotFoundException
+        {
+            byte[] bytecode = classes.get(name);
+            if (bytecode == null) {
+                throw new ClassNotFoundException(name);
+            }
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+
+        /**
+         * Serves the generated bytecode as class files, for the {@link org.springframework.core.type.classreading.MetadataReaderFactory}.
+         */
+        @Override
+        public InputStream getResourceAsStream(final String name)
+        {
+            if (name.endsWith(ClassUtils.CLASS_FILE_SUFFIX)) {
+                byte[] bytecode = classes.get(ClassUtils.convertResourcePathToClassName(name.substring(0, name.length() - ClassUtils.CLASS_FILE_SUFFIX.length())));
+                if (bytecode != null) {
+                    return new ByteArrayInputStream(bytecode);
+                }
+            }
+
+            return super.getResourceAsStream(name);
+        }
+
+    }
+
+}
@@ -4,6 +4,7 @@ plugins {
 
 dependencies {
     implementation(project(":spring-properties-order-by-configurations"))
+    annotationProcessor(project(":spring-properties-order-by-configurations-processor"))
 
     implementation(enforcedPlatform("org.springframework.boot:spring-boot-dependencies:3.4.0"))
     implementation(libs.logback.classic)
@@ -4,12 +4,18 @@ import org.framefork.testing.moduleApp.App;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringBootVersion;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
 import org.springframework.boot.env.OriginTrackedMapPropertySource;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
 import org.springframework.core.io.support.ResourcePropertySource;
 
+import java.io.IOException;
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 @SpringBootTest(
@@ -34,15 +40,38 @@ class AppTest
     }
 
     @Test
-    public void configsResolution()
+    public void configurationsIndex() throws IOException
     {
-        var sources = environment.getPropertySources();
-        var resourceSources = sources.stream()
-            .filter(source -> source instanceof ResourcePropertySource || source instanceof OriginTrackedMapPropertySource)
-            .map(PropertySource::getName)
-            .toList();
+        var index = PropertiesLoaderUtils.loadAllProperties("META-INF/spring-properties-order-by-configurations.index", getClass().getClassLoader());
+
+        assertThat(index)
+            .containsEntry("org.framefork.testing.moduleApp.App.imports", "org.framefork.testing.moduleApp.Configuration5")
+            .containsEntry("org.framefork.testing.moduleApp.Configuration5.types", "org.framefork.testing.moduleApp.Configuration5")
+            .containsEntry("org.framefork.testing.moduleApp.Configuration5.imports", "org.framefork.testing.moduleApp.Configuration4")
+            .containsEntry("org.framefork.testing.moduleApp.Configuration5.property-source.0.location.0", "classpath:config5.properties")
+            .containsEntry("org.framefork.testing.moduleApp.Configuration4.imports", "org.framefork.testing.moduleCore.Configuration1")
+            .containsEntry("org.framefork.testing.moduleCore.Configuration1.imports", "org.framefork.testing.moduleCore.Configuration2,org.framefork.testing.moduleCore.Configuration3")
+            .containsEntry("org.framefork.testing.moduleCore.Configuration1.property-source.0.location.0", "classpath:config1.properties")
+            .containsEntry("org.framefork.testing.moduleCore.Configuration2.imports", "")
+            .containsEntry("org.framefork.testing.moduleCore.Configuration3.property-source.0.location.0", "classpath:config3.properties");
+    }
+
+    @Test
+    public void sameOrderWithoutIndex()
+    {
+        try (var context = new SpringApplicationBuilder(App.class)
+            .web(WebApplicationType.NONE)
+            .properties("framefork.properties-order-by-configurations.use-index=false")
+            .run()) {
+            assertThat(resourcePropertySourceNames(context.getEnvironment()))
+                .containsExactlyElementsOf(resourcePropertySourceNames(environment));
+        }
+    }
 
-        assertThat(resourceSources).containsExactly(
+    @Test
+    public void configsResolution()
+    {
+        assertThat(resourcePropertySourceNames(environment)).containsExactly(
             "class path resource [config5.properties]",
             "class path resource [config1.properties]",
             "class path resource [config3.properties]",
@@ -53,4 +82,12 @@ class AppTest
         assertThat(testingProperty).isEqualTo("5");
     }
 
+    private static List<String> resourcePropertySourceNames(final ConfigurableEnvironment environment)
+    {
+        return environment.getPropertySources().stream()
+            .filter(source -> source instanceof ResourcePropertySource || source instanceof OriginTrackedMapPropertySource)
+            .map(PropertySource::getName)
+            .toList();
+    }
+
 }